@@ -0,0 +1,88 @@
+package com.uthej.gateway.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.uthej.gateway.filter.CachedResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+@Configuration
+public class CacheConfig {
+    
+    public static final String RESPONSES_CACHE = "gateway-responses";
+    
+    /**
+     * Responses of routes with the ResponseCache filter, bounded by total bytes.
+     * Each entry expires after its own time to live: the route's, or less when
+     * the upstream's max-age is shorter.
+     */
+    @Bean
+    public CaffeineCacheManager cacheManager(
+            @Value("${gateway.response-cache.max-bytes:67108864}") long maxBytes) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected org.springframework.cache.Cache adaptCaffeineCache(String name, Cache<Object, Object> cache) {
+                return RESPONSES_CACHE.equals(name)
+                        ? new ResponsesCache(name, cache, isAllowNullValues())
+                        : super.adaptCaffeineCache(name, cache);
+            }
+        };
+        cacheManager.registerCustomCache(RESPONSES_CACHE, Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((key, value) -> ((CachedResponse) value).weight())
+                .expireAfter(new Expiry<Object, Object>() {
+                    @Override
+                    public long expireAfterCreate(Object key, Object value, long currentTime) {
+                        return ((CachedResponse) value).timeToLiveNanos();
+                    }
+                    
+                    @Override
+                    public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+                        return ((CachedResponse) value).timeToLiveNanos();
+                    }
+                    
+                    @Override
+                    public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build());
+        return cacheManager;
+    }
+    
+    /**
+     * Counts clears, e.g. {@code DELETE /actuator/caches/gateway-responses}, so a
+     * response fetched before a clear is not stored after it.
+     */
+    public static class ResponsesCache extends CaffeineCache {
+        
+        private final AtomicLong clears = new AtomicLong();
+        
+        ResponsesCache(String name, Cache<Object, Object> cache, boolean allowNullValues) {
+            super(name, cache, allowNullValues);
+        }
+        
+        public long getClearCount() {
+            return clears.get();
+        }
+        
+        @Override
+        public void clear() {
+            clears.incrementAndGet();
+            super.clear();
+        }
+        
+        @Override
+        public boolean invalidate() {
+            clears.incrementAndGet();
+            return super.invalidate();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.uthej.gateway.config;
+
+import com.uthej.gateway.ratelimit.LocalRateLimiter;
+import com.uthej.gateway.ratelimit.OrderedRequestRateLimiterGatewayFilterFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.cloud.gateway.support.ipresolver.RemoteAddressResolver;
+import org.springframework.cloud.gateway.support.ipresolver.XForwardedRemoteAddressResolver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.publisher.Mono;
+
+@Configuration
+public class RateLimitConfig {
+    
+    /**
+     * Rate limits are applied per client address. X-Forwarded-For is only trusted
+     * for as many hops as there are proxies in front of the gateway, otherwise
+     * clients could pick their own key.
+     */
+    @Bean
+    public KeyResolver clientAddressKeyResolver(@Value("${gateway.rate-limit.trusted-proxies:0}") int trustedProxies) {
+        RemoteAddressResolver resolver = trustedProxies > 0
+                ? XForwardedRemoteAddressResolver.maxTrustedIndex(trustedProxies)
+                : new RemoteAddressResolver() {};
+        return exchange -> Mono.justOrEmpty(resolver.resolve(exchange))
+                .map(address -> address.getHostString());
+    }
+    
+    /**
+     * Replaces the stock RequestRateLimiter factory, which is disabled in
+     * application.yml, so routes keep using {@code RequestRateLimiter} by name.
+     */
+    @Bean
+    @ConfigurationProperties("spring.cloud.gateway.filter.request-rate-limiter")
+    public OrderedRequestRateLimiterGatewayFilterFactory orderedRequestRateLimiterGatewayFilterFactory(
+            LocalRateLimiter rateLimiter, KeyResolver keyResolver) {
+        return new OrderedRequestRateLimiterGatewayFilterFactory(rateLimiter, keyResolver);
+    }
+}
\ No newline at end of file
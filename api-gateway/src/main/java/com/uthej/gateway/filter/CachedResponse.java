@@ -0,0 +1,15 @@
+package com.uthej.gateway.filter;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+
+/**
+ * A complete upstream response held by the response cache.
+ */
+public record CachedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body, long storedAt, long timeToLiveNanos) {
+    
+    // Rough heap footprint, used to bound the cache by bytes rather than entries
+    public int weight() {
+        return body.length + 64 * headers.size() + 128;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,318 @@
+package com.uthej.gateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.uthej.gateway.config.CacheConfig;
+import com.uthej.gateway.ratelimit.LocalRateLimiter;
+import jakarta.annotation.PostConstruct;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches complete GET responses of a route at the edge, e.g. {@code ResponseCache=10s}.
+ * Entries are keyed by path and query (plus the Accept and Origin headers the
+ * services vary on), honour the upstream {@code Cache-Control} and answer
+ * {@code If-None-Match} from the stored ETag. Any other request passing through
+ * the route is treated as a write and purges the route's entries once it completes.
+ * Runs after {@code RequestRateLimiter}, so cache hits are rate limited like any
+ * other request.
+ */
+@Component
+public class ResponseCacheGatewayFilterFactory extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+    
+    public static final String CACHE_STATUS_HEADER = "X-Cache";
+    
+    // Just before the response is written, so the upstream body can be captured on its way out
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    
+    // Not forwarded from a stored response; the length is recomputed on replay and rate limits are per request
+    private static final List<String> UNSTORED_HEADERS = List.of(
+            HttpHeaders.CONNECTION, HttpHeaders.TRANSFER_ENCODING, HttpHeaders.CONTENT_LENGTH,
+            "Keep-Alive", HttpHeaders.AGE, CACHE_STATUS_HEADER, LocalRateLimiter.REMAINING_HEADER,
+            LocalRateLimiter.REPLENISH_RATE_HEADER, LocalRateLimiter.BURST_CAPACITY_HEADER);
+    
+    @Value("${gateway.response-cache.max-entry-bytes:1048576}")
+    private int maxEntryBytes;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    private CacheConfig.ResponsesCache responsesCache;
+    private Cache<Object, Object> responses;
+    
+    // Bumped by every write through a route; a response is only stored if no write or clear overlapped it
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    
+    public ResponseCacheGatewayFilterFactory() {
+        super(Config.class);
+    }
+    
+    @PostConstruct
+    public void init() {
+        responsesCache = (CacheConfig.ResponsesCache) cacheManager.getCache(CacheConfig.RESPONSES_CACHE);
+        responses = responsesCache.getNativeCache();
+    }
+    
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("timeToLive");
+    }
+    
+    @Override
+    public GatewayFilter apply(Config config) {
+        return new OrderedGatewayFilter((exchange, chain) -> filter(exchange, chain, config), ORDER);
+    }
+    
+    /**
+     * Drops every stored response of the route, e.g. after a write to it.
+     */
+    public void purge(String routeId) {
+        generation(routeId).incrementAndGet();
+        responses.asMap().keySet().removeIf(key -> ((CacheKey) key).routeId().equals(routeId));
+    }
+    
+    private Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain, Config config) {
+        ServerHttpRequest request = exchange.getRequest();
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route.getId();
+        
+        if (!HttpMethod.GET.equals(request.getMethod()) && !HttpMethod.HEAD.equals(request.getMethod())
+                && !HttpMethod.OPTIONS.equals(request.getMethod())) {
+            generation(routeId).incrementAndGet();
+            return chain.filter(exchange).doFinally(signal -> purge(routeId));
+        }
+        
+        HttpHeaders headers = request.getHeaders();
+        List<String> requestDirectives = directives(headers.get(HttpHeaders.CACHE_CONTROL));
+        if (!HttpMethod.GET.equals(request.getMethod()) || headers.containsKey(HttpHeaders.AUTHORIZATION)
+                || requestDirectives.contains("no-store")) {
+            return chain.filter(exchange);
+        }
+        
+        CacheKey key = new CacheKey(routeId, request.getURI().getRawPath(), request.getURI().getRawQuery(),
+                headers.getFirst(HttpHeaders.ACCEPT), headers.getOrigin());
+        String ifNoneMatch = headers.getFirst(HttpHeaders.IF_NONE_MATCH);
+        
+        boolean revalidate = requestDirectives.contains("no-cache") || requestDirectives.contains("max-age=0")
+                || directives(headers.get(HttpHeaders.PRAGMA)).contains("no-cache");
+        if (!revalidate) {
+            CachedResponse cached = (CachedResponse) responses.getIfPresent(key);
+            if (cached != null) {
+                return replay(exchange.getResponse(), cached, ifNoneMatch);
+            }
+        }
+        
+        // Always fetch a full representation so it can be stored; the client's validator is applied here
+        long generation = generation(routeId).get();
+        long clears = responsesCache.getClearCount();
+        ServerHttpRequest upstreamRequest = request.mutate()
+                .headers(h -> h.remove(HttpHeaders.IF_NONE_MATCH))
+                .build();
+        ServerHttpResponse response = new CapturingResponse(exchange.getResponse(), config, key, generation, clears, ifNoneMatch);
+        return chain.filter(exchange.mutate().request(upstreamRequest).response(response).build());
+    }
+    
+    private Mono<Void> replay(ServerHttpResponse response, CachedResponse cached, String ifNoneMatch) {
+        HttpHeaders headers = response.getHeaders();
+        headers.putAll(cached.headers());
+        headers.set(HttpHeaders.AGE, Long.toString(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - cached.storedAt())));
+        headers.set(CACHE_STATUS_HEADER, "HIT");
+        if (matches(ifNoneMatch, cached.headers().getETag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        response.setStatusCode(cached.status());
+        headers.setContentLength(cached.body().length);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(cached.body())));
+    }
+    
+    /**
+     * How long the upstream response may be stored, or {@code null} if it must not be.
+     */
+    private static Duration timeToLive(ServerHttpResponse response, Duration routeTimeToLive) {
+        HttpHeaders headers = response.getHeaders();
+        if (!HttpStatus.OK.equals(response.getStatusCode()) || headers.containsKey(HttpHeaders.SET_COOKIE)
+                || directives(headers.get(HttpHeaders.VARY)).contains("*")) {
+            return null;
+        }
+        
+        Duration timeToLive = routeTimeToLive;
+        Long maxAge = null;
+        for (String directive : directives(headers.get(HttpHeaders.CACHE_CONTROL))) {
+            if (directive.equals("no-store") || directive.equals("no-cache") || directive.startsWith("private")) {
+                return null;
+            }
+            if (directive.startsWith("s-maxage=")) {
+                maxAge = seconds(directive);
+            } else if (directive.startsWith("max-age=") && maxAge == null) {
+                maxAge = seconds(directive);
+            }
+        }
+        if (maxAge != null && maxAge < timeToLive.toSeconds()) {
+            timeToLive = Duration.ofSeconds(maxAge);
+        }
+        return timeToLive.isZero() || timeToLive.isNegative() ? null : timeToLive;
+    }
+    
+    private static Long seconds(String directive) {
+        try {
+            return Long.parseLong(directive.substring(directive.indexOf('=') + 1).replace("\"", ""));
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+    
+    private static List<String> directives(List<String> values) {
+        List<String> directives = new ArrayList<>();
+        if (values != null) {
+            for (String value : values) {
+                for (String directive : value.split(",")) {
+                    directives.add(directive.trim().toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return directives;
+    }
+    
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private AtomicLong generation(String routeId) {
+        return generations.computeIfAbsent(routeId, id -> new AtomicLong());
+    }
+    
+    private record CacheKey(String routeId, String path, String query, String accept, String origin) {
+    }
+    
+    /**
+     * Copies the upstream body into the cache while it streams to the client.
+     */
+    private class CapturingResponse extends ServerHttpResponseDecorator {
+        
+        private final Config config;
+        private final CacheKey key;
+        private final long generation;
+        private final long clears;
+        private final String ifNoneMatch;
+        
+        CapturingResponse(ServerHttpResponse delegate, Config config, CacheKey key, long generation, long clears,
+                          String ifNoneMatch) {
+            super(delegate);
+            this.config = config;
+            this.key = key;
+            this.generation = generation;
+            this.clears = clears;
+            this.ifNoneMatch = ifNoneMatch;
+        }
+        
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            Duration timeToLive = timeToLive(getDelegate(), config.getTimeToLive());
+            HttpHeaders headers = getHeaders();
+            if (timeToLive == null) {
+                headers.set(CACHE_STATUS_HEADER, "BYPASS");
+                return super.writeWith(body);
+            }
+            
+            HttpHeaders stored = new HttpHeaders();
+            headers.forEach((name, values) -> {
+                if (UNSTORED_HEADERS.stream().noneMatch(name::equalsIgnoreCase)) {
+                    stored.put(name, List.copyOf(values));
+                }
+            });
+            HttpStatusCode status = getDelegate().getStatusCode();
+            ByteArrayOutputStream copy = new ByteArrayOutputStream();
+            Runnable store = () -> {
+                if (copy.size() <= maxEntryBytes && generation(key.routeId()).get() == generation
+                        && responsesCache.getClearCount() == clears) {
+                    responses.put(key, new CachedResponse(status, HttpHeaders.readOnlyHttpHeaders(stored),
+                            copy.toByteArray(), System.nanoTime(), timeToLive.toNanos()));
+                }
+            };
+            
+            headers.set(CACHE_STATUS_HEADER, "MISS");
+            if (matches(ifNoneMatch, stored.getETag())) {
+                // Still read the full body so the representation is stored, but send none
+                headers.remove(HttpHeaders.CONTENT_LENGTH);
+                setStatusCode(HttpStatus.NOT_MODIFIED);
+                return Flux.from(body)
+                        .doOnNext(buffer -> {
+                            append(copy, buffer);
+                            DataBufferUtils.release(buffer);
+                        })
+                        .then(Mono.fromRunnable(store))
+                        .then(getDelegate().setComplete());
+            }
+            return super.writeWith(Flux.from(body)
+                    .doOnNext(buffer -> append(copy, buffer))
+                    .doOnComplete(store));
+        }
+        
+        private void append(ByteArrayOutputStream copy, DataBuffer buffer) {
+            // Past the limit the response still streams to the client, it is just not kept
+            if (copy.size() > maxEntryBytes) {
+                return;
+            }
+            int length = buffer.readableByteCount();
+            ByteBuffer bytes = ByteBuffer.allocate(length);
+            buffer.toByteBuffer(buffer.readPosition(), bytes, 0, length);
+            copy.write(bytes.array(), 0, length);
+        }
+    }
+    
+    public static class Config {
+        
+        private Duration timeToLive = Duration.ofSeconds(30);
+        
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+        
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+    }
+}
\ No newline at end of file
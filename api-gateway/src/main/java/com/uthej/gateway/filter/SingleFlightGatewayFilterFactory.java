@@ -0,0 +1,207 @@
+package com.uthej.gateway.filter;
+
+import com.uthej.gateway.ratelimit.LocalRateLimiter;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coalesces identical concurrent GETs of a route, e.g. {@code SingleFlight=1000}.
+ * The first request goes upstream; requests for the same path, query and
+ * negotiation headers that arrive while it is in flight wait for its response
+ * and are answered with a copy of it. Past the waiter limit, or if the first
+ * request fails or its body is too large to share, requests go upstream on
+ * their own. Runs after {@code RequestRateLimiter}, so waiters are rate limited
+ * like any other request.
+ */
+@Component
+public class SingleFlightGatewayFilterFactory extends AbstractGatewayFilterFactory<SingleFlightGatewayFilterFactory.Config> {
+    
+    public static final String COALESCED_HEADER = "X-Coalesced";
+    
+    // Rate limit headers describe the leader's own request, not the waiters'
+    private static final List<String> UNSHARED_HEADERS = List.of(
+            HttpHeaders.CONNECTION, HttpHeaders.TRANSFER_ENCODING, HttpHeaders.CONTENT_LENGTH, "Keep-Alive",
+            LocalRateLimiter.REMAINING_HEADER, LocalRateLimiter.REPLENISH_RATE_HEADER, LocalRateLimiter.BURST_CAPACITY_HEADER);
+    
+    @Value("${gateway.single-flight.max-body-bytes:1048576}")
+    private int maxBodyBytes;
+    
+    private final Map<FlightKey, Flight> flights = new ConcurrentHashMap<>();
+    
+    public SingleFlightGatewayFilterFactory() {
+        super(Config.class);
+    }
+    
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("maxWaiters");
+    }
+    
+    @Override
+    public GatewayFilter apply(Config config) {
+        // Same slot as ResponseCache; list it after that filter so cache hits never wait
+        return new OrderedGatewayFilter((exchange, chain) -> filter(exchange, chain, config),
+                ResponseCacheGatewayFilterFactory.ORDER);
+    }
+    
+    private Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain, Config config) {
+        ServerHttpRequest request = exchange.getRequest();
+        HttpHeaders headers = request.getHeaders();
+        if (!HttpMethod.GET.equals(request.getMethod()) || headers.containsKey(HttpHeaders.AUTHORIZATION)) {
+            return chain.filter(exchange);
+        }
+        
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        FlightKey key = new FlightKey(route.getId(), request.getURI().getRawPath(), request.getURI().getRawQuery(),
+                headers.getFirst(HttpHeaders.ACCEPT), headers.getOrigin(), headers.getFirst(HttpHeaders.IF_NONE_MATCH));
+        Flight flight = new Flight();
+        Flight inFlight = flights.putIfAbsent(key, flight);
+        
+        if (inFlight != null) {
+            if (inFlight.waiters.incrementAndGet() > config.getMaxWaiters()) {
+                return chain.filter(exchange);
+            }
+            // Only an empty flight sends the waiter upstream, not the empty completion of share()
+            return inFlight.response.asMono()
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(shared -> shared.isPresent()
+                            ? share(exchange.getResponse(), shared.get())
+                            : chain.filter(exchange));
+        }
+        
+        ServerHttpResponse response = new SharingResponse(exchange.getResponse(), key, flight);
+        return chain.filter(exchange.mutate().response(response).build())
+                .doFinally(signal -> {
+                    flights.remove(key, flight);
+                    // Nothing shareable was produced (error, cancellation, oversized body): waiters go upstream
+                    flight.response.tryEmitEmpty();
+                });
+    }
+    
+    private static Mono<Void> share(ServerHttpResponse response, SharedResponse shared) {
+        response.setStatusCode(shared.status());
+        HttpHeaders headers = response.getHeaders();
+        headers.putAll(shared.headers());
+        headers.set(COALESCED_HEADER, "true");
+        if (shared.body().length == 0) {
+            return response.setComplete();
+        }
+        headers.setContentLength(shared.body().length);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(shared.body())));
+    }
+    
+    private record FlightKey(String routeId, String path, String query, String accept, String origin, String ifNoneMatch) {
+    }
+    
+    private record SharedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+    }
+    
+    private static final class Flight {
+        
+        private final Sinks.One<SharedResponse> response = Sinks.one();
+        private final AtomicInteger waiters = new AtomicInteger();
+    }
+    
+    /**
+     * Passes the leader's response through to its client and publishes a copy to the waiters.
+     */
+    private class SharingResponse extends ServerHttpResponseDecorator {
+        
+        private final FlightKey key;
+        private final Flight flight;
+        
+        SharingResponse(ServerHttpResponse delegate, FlightKey key, Flight flight) {
+            super(delegate);
+            this.key = key;
+            this.flight = flight;
+        }
+        
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            close();
+            HttpStatusCode status = getStatusCode();
+            HttpHeaders headers = snapshot();
+            ByteArrayOutputStream copy = new ByteArrayOutputStream();
+            return super.writeWith(Flux.from(body)
+                    .doOnNext(buffer -> append(copy, buffer))
+                    .doOnComplete(() -> {
+                        if (copy.size() <= maxBodyBytes) {
+                            flight.response.tryEmitValue(new SharedResponse(status, headers, copy.toByteArray()));
+                        }
+                    }));
+        }
+        
+        @Override
+        public Mono<Void> setComplete() {
+            close();
+            flight.response.tryEmitValue(new SharedResponse(getStatusCode(), snapshot(), new byte[0]));
+            return super.setComplete();
+        }
+        
+        // Closed to new waiters before any of the response reaches the leader's client, so a request
+        // sent after it, e.g. after a cache clear, starts a flight of its own instead of getting a copy
+        private void close() {
+            flights.remove(key, flight);
+        }
+        
+        private HttpHeaders snapshot() {
+            HttpHeaders snapshot = new HttpHeaders();
+            getHeaders().forEach((name, values) -> {
+                if (UNSHARED_HEADERS.stream().noneMatch(name::equalsIgnoreCase)) {
+                    snapshot.put(name, List.copyOf(values));
+                }
+            });
+            return HttpHeaders.readOnlyHttpHeaders(snapshot);
+        }
+        
+        private void append(ByteArrayOutputStream copy, DataBuffer buffer) {
+            if (copy.size() > maxBodyBytes) {
+                return;
+            }
+            int length = buffer.readableByteCount();
+            ByteBuffer bytes = ByteBuffer.allocate(length);
+            buffer.toByteBuffer(buffer.readPosition(), bytes, 0, length);
+            copy.write(bytes.array(), 0, length);
+        }
+    }
+    
+    public static class Config {
+        
+        private int maxWaiters = 1000;
+        
+        public int getMaxWaiters() {
+            return maxWaiters;
+        }
+        
+        public void setMaxWaiters(int maxWaiters) {
+            this.maxWaiters = maxWaiters;
+        }
+    }
+}
\ No newline at end of file
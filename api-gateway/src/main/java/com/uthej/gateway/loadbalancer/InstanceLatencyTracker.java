@@ -0,0 +1,173 @@
+package com.uthej.gateway.loadbalancer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.netflix.eureka.EurekaServiceInstance;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-instance request statistics for {@link PeakEwmaLoadBalancer}, fed by the
+ * load balancer lifecycle of every lb:// call the gateway makes. Each instance
+ * keeps its in-flight count and a peak-sensitive moving average of its response
+ * times: a slower response replaces the average at once, faster ones pull it
+ * down gradually with the decay time.
+ */
+@Component
+public class InstanceLatencyTracker implements LoadBalancerLifecycle<RequestDataContext, ResponseData, ServiceInstance> {
+    
+    private static final double MIN_LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    
+    @Value("${gateway.load-balancer.decay-time:10s}")
+    private Duration decayTime;
+    
+    @Value("${gateway.load-balancer.slow-start:30s}")
+    private Duration slowStart;
+    
+    @Value("${gateway.load-balancer.slow-start-min-weight:0.1}")
+    private double slowStartMinWeight;
+    
+    @Value("${gateway.load-balancer.failure-penalty:1s}")
+    private Duration failurePenalty;
+    
+    @Value("${gateway.load-balancer.stats-retention:10m}")
+    private Duration statsRetention;
+    
+    private final Map<String, InstanceStats> stats = new ConcurrentHashMap<>();
+    
+    /**
+     * Expected cost of sending one more request to the instance: its latency
+     * times the requests it would then have in flight, inflated while the
+     * instance is still warming up. Instances without samples are assumed to
+     * be as fast as {@code defaultLatency}.
+     */
+    double cost(ServiceInstance instance, double defaultLatency, long now) {
+        InstanceStats instanceStats = stats(instance);
+        double latency = instanceStats.latency(now, decayTime.toNanos());
+        if (Double.isNaN(latency)) {
+            latency = defaultLatency;
+        }
+        double weight = slowStartWeight(instance, instanceStats);
+        return Math.max(latency, MIN_LATENCY_NANOS) * (instanceStats.inFlight.get() + 1) / weight;
+    }
+    
+    /**
+     * Latency of the instance, or NaN if it has not answered a request yet.
+     */
+    double latency(ServiceInstance instance, long now) {
+        return stats(instance).latency(now, decayTime.toNanos());
+    }
+    
+    @Override
+    public void onStart(Request<RequestDataContext> request) {
+    }
+    
+    @Override
+    public void onStartRequest(Request<RequestDataContext> request, Response<ServiceInstance> lbResponse) {
+        if (!lbResponse.hasServer()) {
+            return;
+        }
+        if (request.getContext() != null) {
+            request.getContext().setRequestStartTime(System.nanoTime());
+        }
+        stats(lbResponse.getServer()).inFlight.incrementAndGet();
+    }
+    
+    @Override
+    public void onComplete(CompletionContext<ResponseData, ServiceInstance, RequestDataContext> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+        InstanceStats instanceStats = stats(lbResponse.getServer());
+        instanceStats.inFlight.decrementAndGet();
+        RequestDataContext context = completionContext.getLoadBalancerRequest().getContext();
+        if (context == null || context.getRequestStartTime() == 0) {
+            return;
+        }
+        
+        long now = System.nanoTime();
+        double latency = now - context.getRequestStartTime();
+        ResponseData response = completionContext.getClientResponse();
+        boolean failed = completionContext.status() == CompletionContext.Status.FAILED
+                || (response != null && response.getHttpStatus() != null && response.getHttpStatus().is5xxServerError());
+        if (failed) {
+            // A fast failure must not make a broken instance look attractive
+            latency = Math.max(latency, failurePenalty.toNanos());
+        }
+        instanceStats.observe(latency, now, decayTime.toNanos());
+    }
+    
+    @Scheduled(fixedDelayString = "${gateway.load-balancer.stats-cleanup-interval-ms:60000}")
+    public void removeStale() {
+        long cutoff = System.nanoTime() - statsRetention.toNanos();
+        stats.values().removeIf(instanceStats -> instanceStats.inFlight.get() == 0 && instanceStats.lastUsed - cutoff < 0);
+    }
+    
+    private InstanceStats stats(ServiceInstance instance) {
+        String key = instance.getServiceId() + '/' + instance.getHost() + ':' + instance.getPort();
+        InstanceStats instanceStats = stats.get(key);
+        if (instanceStats == null) {
+            instanceStats = stats.computeIfAbsent(key, k -> new InstanceStats());
+        }
+        instanceStats.lastUsed = System.nanoTime();
+        return instanceStats;
+    }
+    
+    private double slowStartWeight(ServiceInstance instance, InstanceStats instanceStats) {
+        long upSince = instanceStats.firstSeen;
+        if (instance instanceof EurekaServiceInstance eurekaInstance) {
+            // Registered before the gateway saw it: use the time Eureka marked it UP
+            long serviceUp = eurekaInstance.getInstanceInfo().getLeaseInfo().getServiceUpTimestamp();
+            if (serviceUp > 0) {
+                upSince = Math.min(upSince, serviceUp);
+            }
+        }
+        double age = System.currentTimeMillis() - upSince;
+        if (slowStart.isZero() || age >= slowStart.toMillis()) {
+            return 1;
+        }
+        return Math.max(slowStartMinWeight, age / slowStart.toMillis());
+    }
+    
+    private static final class InstanceStats {
+        
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final long firstSeen = System.currentTimeMillis();
+        private volatile long lastUsed;
+        
+        // Guarded by "this"
+        private double ewma = Double.NaN;
+        private long stamp;
+        
+        synchronized void observe(double latency, long now, long decayNanos) {
+            if (Double.isNaN(ewma) || latency > ewma) {
+                ewma = latency;
+            } else {
+                double weight = Math.exp(-(double) (now - stamp) / decayNanos);
+                ewma = ewma * weight + latency * (1 - weight);
+            }
+            stamp = now;
+        }
+        
+        synchronized double latency(long now, long decayNanos) {
+            if (Double.isNaN(ewma) || inFlight.get() > 0) {
+                return ewma;
+            }
+            // An idle instance recovers from old peaks so it gets probed again
+            return ewma * Math.exp(-(double) (now - stamp) / decayNanos);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.uthej.gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Per-service load balancer configuration, applied to every lb:// route through
+ * {@code @LoadBalancerClients(defaultConfiguration = ...)}. Deliberately not a
+ * {@code @Configuration}: it is instantiated in each service's child context, not
+ * by component scanning.
+ */
+public class LatencyAwareLoadBalancerConfiguration {
+    
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> peakEwmaLoadBalancer(Environment environment,
+                                                                     LoadBalancerClientFactory loadBalancerClientFactory,
+                                                                     InstanceLatencyTracker tracker) {
+        String serviceId = LoadBalancerClientFactory.getName(environment);
+        return new PeakEwmaLoadBalancer(loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+                serviceId, tracker);
+    }
+}
\ No newline at end of file
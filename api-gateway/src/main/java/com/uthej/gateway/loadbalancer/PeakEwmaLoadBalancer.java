@@ -0,0 +1,86 @@
+package com.uthej.gateway.loadbalancer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks two instances at random and sends the request to the one with the lower
+ * peak-EWMA cost (latency times outstanding requests, see
+ * {@link InstanceLatencyTracker}). Sampling two keeps the choice cheap and avoids
+ * herding onto a single "best" instance, while a slow or paused instance quickly
+ * stops receiving its round-robin share.
+ */
+public class PeakEwmaLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+    
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+    private final String serviceId;
+    private final InstanceLatencyTracker tracker;
+    
+    public PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                String serviceId, InstanceLatencyTracker tracker) {
+        this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.serviceId = serviceId;
+        this.tracker = tracker;
+    }
+    
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider
+                .getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(this::choose);
+    }
+    
+    private Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            return new EmptyResponse();
+        }
+        if (instances.size() == 1) {
+            return new DefaultResponse(instances.get(0));
+        }
+        
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(instances.size());
+        int second = random.nextInt(instances.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = instances.get(first);
+        ServiceInstance b = instances.get(second);
+        
+        long now = System.nanoTime();
+        double defaultLatency = averageLatency(instances, now);
+        return new DefaultResponse(tracker.cost(a, defaultLatency, now) <= tracker.cost(b, defaultLatency, now) ? a : b);
+    }
+    
+    /**
+     * Instances that have not answered yet are assumed to be as fast as the average of the others.
+     */
+    private double averageLatency(List<ServiceInstance> instances, long now) {
+        double sum = 0;
+        int sampled = 0;
+        for (ServiceInstance instance : instances) {
+            double latency = tracker.latency(instance, now);
+            if (!Double.isNaN(latency)) {
+                sum += latency;
+                sampled++;
+            }
+        }
+        return sampled == 0 ? 0 : sum / sampled;
+    }
+    
+    @Override
+    public String toString() {
+        return "PeakEwmaLoadBalancer[" + serviceId + "]";
+    }
+}
\ No newline at end of file
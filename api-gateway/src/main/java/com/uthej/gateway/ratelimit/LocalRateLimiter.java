@@ -0,0 +1,179 @@
+package com.uthej.gateway.ratelimit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process replacement for the Redis rate limiter of {@code RequestRateLimiter}.
+ * Every client gets its own token bucket per route, and a route can additionally
+ * be capped as a whole. Buckets are kept in a concurrent map and updated with a
+ * single compare-and-set, and are dropped once they have been full for the idle
+ * timeout, so the map only holds recently active clients. Limits are per gateway
+ * instance.
+ */
+@Component
+public class LocalRateLimiter extends AbstractRateLimiter<LocalRateLimiter.Config> {
+    
+    public static final String CONFIGURATION_PROPERTY_NAME = "local-rate-limiter";
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    public static final String REPLENISH_RATE_HEADER = "X-RateLimit-Replenish-Rate";
+    public static final String BURST_CAPACITY_HEADER = "X-RateLimit-Burst-Capacity";
+    public static final String RETRY_AFTER_MILLIS_HEADER = "X-RateLimit-Retry-After-Millis";
+    
+    private final Config defaultConfig;
+    
+    @Value("${gateway.rate-limit.idle-timeout:5m}")
+    private Duration idleTimeout;
+    
+    private final Map<String, Bucket> clientBuckets = new ConcurrentHashMap<>();
+    private final Map<String, Bucket> routeBuckets = new ConcurrentHashMap<>();
+    
+    public LocalRateLimiter(ConfigurationService configurationService,
+                            @Value("${gateway.rate-limit.replenish-rate:50}") int replenishRate,
+                            @Value("${gateway.rate-limit.burst-capacity:100}") int burstCapacity) {
+        super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+        this.defaultConfig = new Config();
+        defaultConfig.setReplenishRate(replenishRate);
+        defaultConfig.setBurstCapacity(burstCapacity);
+    }
+    
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        Config config = getConfig().getOrDefault(routeId, defaultConfig);
+        long now = System.nanoTime();
+        
+        Bucket client = bucket(clientBuckets, routeId + ':' + id, now);
+        long remaining = client.tryAcquire(now, config.getReplenishRate(), config.getBurstCapacity());
+        if (remaining >= 0 && config.getRouteReplenishRate() > 0) {
+            long routeRemaining = bucket(routeBuckets, routeId, now)
+                    .tryAcquire(now, config.getRouteReplenishRate(), config.getRouteBurstCapacity());
+            if (routeRemaining < 0) {
+                // Rejected by the route as a whole, so the client keeps its token
+                client.release(config.getReplenishRate());
+                remaining = routeRemaining;
+            }
+        }
+        
+        Map<String, String> headers = new HashMap<>();
+        headers.put(REPLENISH_RATE_HEADER, Integer.toString(config.getReplenishRate()));
+        headers.put(BURST_CAPACITY_HEADER, Integer.toString(config.getBurstCapacity()));
+        if (remaining >= 0) {
+            headers.put(REMAINING_HEADER, Long.toString(remaining));
+            return Mono.just(new Response(true, headers));
+        }
+        long waitMillis = TimeUnit.NANOSECONDS.toMillis(-remaining) + 1;
+        headers.put(REMAINING_HEADER, "0");
+        headers.put(HttpHeaders.RETRY_AFTER, Long.toString(TimeUnit.MILLISECONDS.toSeconds(waitMillis + 999)));
+        headers.put(RETRY_AFTER_MILLIS_HEADER, Long.toString(waitMillis));
+        return Mono.just(new Response(false, headers));
+    }
+    
+    /**
+     * Drops buckets that have been full for the idle timeout; a fresh bucket behaves identically.
+     */
+    @Scheduled(fixedDelayString = "${gateway.rate-limit.eviction-interval-ms:30000}")
+    public void evictIdle() {
+        long cutoff = System.nanoTime() - idleTimeout.toNanos();
+        clientBuckets.values().removeIf(bucket -> bucket.isFullSince(cutoff));
+        routeBuckets.values().removeIf(bucket -> bucket.isFullSince(cutoff));
+    }
+    
+    private static Bucket bucket(Map<String, Bucket> buckets, String key, long now) {
+        Bucket bucket = buckets.get(key);
+        return bucket != null ? bucket : buckets.computeIfAbsent(key, k -> new Bucket(now));
+    }
+    
+    /**
+     * Token bucket stored as the time at which it will be full again (GCRA). Taking
+     * a token pushes that time forward by one emission interval; the request is
+     * rejected if it would end up more than a full burst ahead of now.
+     */
+    static final class Bucket {
+        
+        private final AtomicLong fullAt;
+        
+        Bucket(long now) {
+            this.fullAt = new AtomicLong(now);
+        }
+        
+        /**
+         * Returns the tokens left after taking one, or the negated nanoseconds until one is available.
+         */
+        long tryAcquire(long now, int replenishRate, int burstCapacity) {
+            long interval = TimeUnit.SECONDS.toNanos(1) / replenishRate;
+            long limit = interval * burstCapacity;
+            while (true) {
+                long current = fullAt.get();
+                long next = (current - now > 0 ? current : now) + interval;
+                long ahead = next - now;
+                if (ahead > limit) {
+                    return -(ahead - limit);
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return (limit - ahead) / interval;
+                }
+            }
+        }
+        
+        void release(int replenishRate) {
+            fullAt.addAndGet(-(TimeUnit.SECONDS.toNanos(1) / replenishRate));
+        }
+        
+        boolean isFullSince(long time) {
+            return fullAt.get() - time < 0;
+        }
+    }
+    
+    public static class Config {
+        
+        private int replenishRate;
+        private int burstCapacity;
+        // Optional cap on the route as a whole, across all clients; 0 disables it
+        private int routeReplenishRate;
+        private int routeBurstCapacity;
+        
+        public int getReplenishRate() {
+            return replenishRate;
+        }
+        
+        public void setReplenishRate(int replenishRate) {
+            this.replenishRate = replenishRate;
+        }
+        
+        public int getBurstCapacity() {
+            return burstCapacity;
+        }
+        
+        public void setBurstCapacity(int burstCapacity) {
+            this.burstCapacity = burstCapacity;
+        }
+        
+        public int getRouteReplenishRate() {
+            return routeReplenishRate;
+        }
+        
+        public void setRouteReplenishRate(int routeReplenishRate) {
+            this.routeReplenishRate = routeReplenishRate;
+        }
+        
+        public int getRouteBurstCapacity() {
+            return routeBurstCapacity;
+        }
+        
+        public void setRouteBurstCapacity(int routeBurstCapacity) {
+            this.routeBurstCapacity = routeBurstCapacity;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.uthej.gateway.ratelimit;
+
+import com.uthej.gateway.filter.ResponseCacheGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.RequestRateLimiterGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+
+/**
+ * {@code RequestRateLimiter} with a fixed order just ahead of the ResponseCache and
+ * SingleFlight filters. The stock factory takes the filter's position in the route
+ * instead, which always comes after those two, so cache hits and coalesced reads
+ * were never counted against a client's limit.
+ */
+public class OrderedRequestRateLimiterGatewayFilterFactory extends RequestRateLimiterGatewayFilterFactory {
+    
+    public static final int ORDER = ResponseCacheGatewayFilterFactory.ORDER - 1;
+    
+    public OrderedRequestRateLimiterGatewayFilterFactory(RateLimiter<?> defaultRateLimiter, KeyResolver defaultKeyResolver) {
+        super(defaultRateLimiter, defaultKeyResolver);
+    }
+    
+    @Override
+    public String name() {
+        return "RequestRateLimiter";
+    }
+    
+    @Override
+    public GatewayFilter apply(Config config) {
+        return new OrderedGatewayFilter(super.apply(config), ORDER);
+    }
+}
\ No newline at end of file
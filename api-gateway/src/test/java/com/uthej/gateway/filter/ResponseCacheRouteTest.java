@@ -0,0 +1,163 @@
+package com.uthej.gateway.filter;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.uthej.gateway.ratelimit.LocalRateLimiter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The product route end to end, against a local product-service stub: the order
+ * of ResponseCache against RequestRateLimiter, and clearing the cache through
+ * the actuator while a response is being fetched.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "gateway.rate-limit.replenish-rate=1",
+        "gateway.rate-limit.burst-capacity=2",
+        "gateway.rate-limit.trusted-proxies=1"
+})
+class ResponseCacheRouteTest {
+    
+    private static final StubProductService stub = new StubProductService();
+    
+    @Autowired
+    private WebTestClient webTestClient;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @DynamicPropertySource
+    static void productService(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.discovery.client.simple.instances.product-service[0].uri", stub::uri);
+    }
+    
+    @AfterAll
+    static void stopStub() {
+        stub.stop();
+    }
+    
+    @BeforeEach
+    void clearCache() {
+        cacheManager.getCache("gateway-responses").clear();
+        stub.calls.set(0);
+    }
+    
+    @Test
+    void cacheHitsCountAgainstTheRateLimit() {
+        // Each test uses its own client address so earlier requests do not drain the bucket
+        get("/api/products/1", "10.0.0.1")
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(ResponseCacheGatewayFilterFactory.CACHE_STATUS_HEADER, "MISS")
+                .expectHeader().valueEquals(LocalRateLimiter.REMAINING_HEADER, "1");
+        get("/api/products/1", "10.0.0.1")
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(ResponseCacheGatewayFilterFactory.CACHE_STATUS_HEADER, "HIT")
+                .expectHeader().valueEquals(LocalRateLimiter.REMAINING_HEADER, "0");
+        get("/api/products/1", "10.0.0.1")
+                .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        
+        assertThat(stub.calls).hasValue(1);
+    }
+    
+    @Test
+    void responseFetchedAcrossAClearIsNotStored() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        stub.hold = release;
+        CompletableFuture<Void> fetch = CompletableFuture.runAsync(() -> get("/api/products/2", "10.0.0.2")
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(ResponseCacheGatewayFilterFactory.CACHE_STATUS_HEADER, "MISS"));
+        assertThat(stub.arrived.await(5, TimeUnit.SECONDS)).isTrue();
+        
+        webTestClient.delete().uri("/actuator/caches/gateway-responses")
+                .exchange()
+                .expectStatus().is2xxSuccessful();
+        release.countDown();
+        fetch.get(5, TimeUnit.SECONDS);
+        
+        stub.hold = null;
+        get("/api/products/2", "10.0.0.2")
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(ResponseCacheGatewayFilterFactory.CACHE_STATUS_HEADER, "MISS");
+        assertThat(stub.calls).hasValue(2);
+    }
+    
+    private WebTestClient.ResponseSpec get(String uri, String clientAddress) {
+        return webTestClient.get().uri(uri)
+                .header("X-Forwarded-For", clientAddress)
+                .exchange();
+    }
+    
+    /**
+     * Answers every product lookup with a small JSON body, optionally holding it
+     * until released.
+     */
+    private static final class StubProductService {
+        
+        private final HttpServer server;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final CountDownLatch arrived = new CountDownLatch(1);
+        private volatile CountDownLatch hold;
+        
+        StubProductService() {
+            try {
+                server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            server.createContext("/products", this::handle);
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.start();
+        }
+        
+        String uri() {
+            return "http://localhost:" + server.getAddress().getPort();
+        }
+        
+        void stop() {
+            server.stop(0);
+        }
+        
+        private void handle(HttpExchange exchange) throws IOException {
+            calls.incrementAndGet();
+            try {
+                CountDownLatch latch = hold;
+                if (latch != null) {
+                    arrived.countDown();
+                    latch.await(5, TimeUnit.SECONDS);
+                }
+                byte[] body = "{\"id\":1,\"name\":\"Stub\"}".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        }
+    }
+}
\ No newline at end of file
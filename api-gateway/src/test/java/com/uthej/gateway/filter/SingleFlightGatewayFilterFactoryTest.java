@@ -0,0 +1,158 @@
+package com.uthej.gateway.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SingleFlightGatewayFilterFactoryTest {
+    
+    private static final String BODY = "{\"id\":1}";
+    
+    private final Route route = Route.async()
+            .id("product-service")
+            .uri("http://localhost")
+            .predicate(exchange -> true)
+            .build();
+    
+    @Test
+    void concurrentIdenticalGetsMakeOneUpstreamCall() throws Exception {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        Sinks.Empty<Void> release = Sinks.empty();
+        // Counts every request that reaches the upstream; responses are held until released
+        GatewayFilterChain upstream = exchange -> {
+            upstreamCalls.incrementAndGet();
+            return release.asMono().then(Mono.defer(() -> {
+                ServerHttpResponse response = exchange.getResponse();
+                response.setStatusCode(HttpStatus.OK);
+                response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                return response.writeWith(Mono.just(response.bufferFactory().wrap(BODY.getBytes(StandardCharsets.UTF_8))));
+            }));
+        };
+        
+        GatewayFilter filter = filter(1000);
+        List<MockServerWebExchange> exchanges = new ArrayList<>();
+        List<Mono<Void>> requests = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            MockServerWebExchange exchange = exchange();
+            exchanges.add(exchange);
+            requests.add(filter.filter(exchange, upstream));
+        }
+        CompletableFuture<Void> done = Mono.when(requests).toFuture();
+        release.tryEmitEmpty();
+        done.get(5, TimeUnit.SECONDS);
+        
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+        for (MockServerWebExchange exchange : exchanges) {
+            assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo(BODY);
+        }
+        long coalesced = exchanges.stream()
+                .filter(exchange -> exchange.getResponse().getHeaders()
+                        .containsKey(SingleFlightGatewayFilterFactory.COALESCED_HEADER))
+                .count();
+        assertThat(coalesced).isEqualTo(49);
+    }
+    
+    @Test
+    void waitersGoUpstreamWhenTheFirstRequestFails() throws Exception {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        Sinks.Empty<Void> release = Sinks.empty();
+        GatewayFilterChain upstream = exchange -> upstreamCalls.incrementAndGet() == 1
+                ? release.asMono().then(Mono.error(new IllegalStateException("connection reset")))
+                : exchange.getResponse().setComplete();
+        
+        GatewayFilter filter = filter(1000);
+        Mono<Void> first = filter.filter(exchange(), upstream);
+        Mono<Void> waiter = filter.filter(exchange(), upstream);
+        CompletableFuture<Void> firstDone = first.onErrorResume(e -> Mono.empty()).toFuture();
+        CompletableFuture<Void> waiterDone = waiter.toFuture();
+        release.tryEmitEmpty();
+        firstDone.get(5, TimeUnit.SECONDS);
+        waiterDone.get(5, TimeUnit.SECONDS);
+        
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+    }
+    
+    @Test
+    void requestsAfterTheResponseIsWrittenStartTheirOwnFlight() throws Exception {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        Sinks.Empty<Void> release = Sinks.empty();
+        // The first response is written in full, but its exchange is held open afterwards
+        GatewayFilterChain upstream = exchange -> {
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.OK);
+            Mono<Void> written = response.writeWith(Mono.just(response.bufferFactory().wrap(BODY.getBytes(StandardCharsets.UTF_8))));
+            return upstreamCalls.incrementAndGet() == 1 ? written.then(release.asMono()) : written;
+        };
+        
+        GatewayFilter filter = filter(1000);
+        MockServerWebExchange first = exchange();
+        CompletableFuture<Void> firstDone = filter.filter(first, upstream).toFuture();
+        assertThat(first.getResponse().getBodyAsString().block(Duration.ofSeconds(5))).isEqualTo(BODY);
+        
+        MockServerWebExchange later = exchange();
+        filter.filter(later, upstream).block(Duration.ofSeconds(5));
+        release.tryEmitEmpty();
+        firstDone.get(5, TimeUnit.SECONDS);
+        
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+        assertThat(later.getResponse().getHeaders()).doesNotContainKey(SingleFlightGatewayFilterFactory.COALESCED_HEADER);
+    }
+    
+    @Test
+    void requestsPastTheWaiterLimitGoUpstream() throws Exception {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        Sinks.Empty<Void> release = Sinks.empty();
+        GatewayFilterChain upstream = exchange -> {
+            upstreamCalls.incrementAndGet();
+            return release.asMono().then(Mono.defer(() -> exchange.getResponse().setComplete()));
+        };
+        
+        GatewayFilter filter = filter(2);
+        List<Mono<Void>> requests = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            requests.add(filter.filter(exchange(), upstream));
+        }
+        CompletableFuture<Void> done = Mono.when(requests).toFuture();
+        release.tryEmitEmpty();
+        done.get(5, TimeUnit.SECONDS);
+        
+        // The first request plus the two requests over the limit of two waiters
+        assertThat(upstreamCalls.get()).isEqualTo(3);
+    }
+    
+    private GatewayFilter filter(int maxWaiters) {
+        SingleFlightGatewayFilterFactory factory = new SingleFlightGatewayFilterFactory();
+        ReflectionTestUtils.setField(factory, "maxBodyBytes", 1048576);
+        SingleFlightGatewayFilterFactory.Config config = new SingleFlightGatewayFilterFactory.Config();
+        config.setMaxWaiters(maxWaiters);
+        return factory.apply(config);
+    }
+    
+    private MockServerWebExchange exchange() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/products/1")
+                .accept(MediaType.APPLICATION_JSON));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        return exchange;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,148 @@
+package com.uthej.gateway.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Simulates one service with four fast instances and one slow one, driven by
+ * concurrent clients that each wait for their response before sending the next
+ * request, and compares peak EWMA with round robin on the same instances.
+ */
+class PeakEwmaLoadBalancerTest {
+    
+    private static final String SERVICE_ID = "product-service";
+    private static final long FAST_MILLIS = 5;
+    private static final long SLOW_MILLIS = 100;
+    private static final int CLIENTS = 20;
+    private static final int REQUESTS = 2000;
+    
+    private final List<ServiceInstance> instances = List.of(
+            instance(1), instance(2), instance(3), instance(4), instance(5));
+    private final ServiceInstance slow = instances.get(0);
+    
+    @Test
+    void peakEwmaCutsTailLatencyBehindASlowInstance() throws Exception {
+        Simulation roundRobin = simulate(tracker -> new RoundRobinLoadBalancer(supplier(), SERVICE_ID));
+        Simulation peakEwma = simulate(tracker -> new PeakEwmaLoadBalancer(supplier(), SERVICE_ID, tracker));
+        
+        // Round robin sends a fifth of the requests to the slow instance, so its p99 is the slow latency
+        assertThat(roundRobin.percentile(99)).isGreaterThanOrEqualTo(SLOW_MILLIS);
+        assertThat(peakEwma.percentile(99)).isLessThan(SLOW_MILLIS / 2);
+        assertThat(peakEwma.requestsTo(slow)).isLessThan(REQUESTS / 20);
+    }
+    
+    private Simulation simulate(Function<InstanceLatencyTracker, ReactorServiceInstanceLoadBalancer> balancerFactory)
+            throws Exception {
+        InstanceLatencyTracker tracker = tracker();
+        ReactorServiceInstanceLoadBalancer balancer = balancerFactory.apply(tracker);
+        Simulation simulation = new Simulation();
+        AtomicInteger remaining = new AtomicInteger(REQUESTS);
+        
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                results.add(clients.submit(() -> {
+                    while (remaining.getAndDecrement() > 0) {
+                        simulation.record(call(balancer, tracker));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+        return simulation;
+    }
+    
+    // One request through the same lifecycle calls the gateway's load balancer filter makes
+    private Call call(ReactorServiceInstanceLoadBalancer balancer, InstanceLatencyTracker tracker)
+            throws InterruptedException {
+        Request<RequestDataContext> request = new DefaultRequest<>(new RequestDataContext());
+        Response<ServiceInstance> response = balancer.choose(request).block();
+        ServiceInstance instance = response.getServer();
+        
+        long start = System.nanoTime();
+        tracker.onStartRequest(request, response);
+        Thread.sleep(instance == slow ? SLOW_MILLIS : FAST_MILLIS);
+        tracker.onComplete(new CompletionContext<>(CompletionContext.Status.SUCCESS, request, response));
+        return new Call(instance, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+    
+    private InstanceLatencyTracker tracker() {
+        InstanceLatencyTracker tracker = new InstanceLatencyTracker();
+        ReflectionTestUtils.setField(tracker, "decayTime", Duration.ofSeconds(10));
+        // Every instance is new to the tracker; slow start is not what is being compared
+        ReflectionTestUtils.setField(tracker, "slowStart", Duration.ZERO);
+        ReflectionTestUtils.setField(tracker, "slowStartMinWeight", 0.1);
+        ReflectionTestUtils.setField(tracker, "failurePenalty", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(tracker, "statsRetention", Duration.ofMinutes(10));
+        return tracker;
+    }
+    
+    private ObjectProvider<ServiceInstanceListSupplier> supplier() {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(
+                Map.of("supplier", ServiceInstanceListSuppliers.from(SERVICE_ID, instances.toArray(ServiceInstance[]::new))));
+        return beanFactory.getBeanProvider(ServiceInstanceListSupplier.class);
+    }
+    
+    private static ServiceInstance instance(int number) {
+        return new DefaultServiceInstance(SERVICE_ID + "-" + number, SERVICE_ID, "10.0.0." + number, 8082, false);
+    }
+    
+    private record Call(ServiceInstance instance, long millis) {
+    }
+    
+    private static final class Simulation {
+        
+        private final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        private final Map<ServiceInstance, AtomicInteger> requests = new ConcurrentHashMap<>();
+        
+        void record(Call call) {
+            latencies.add(call.millis());
+            requests.computeIfAbsent(call.instance(), instance -> new AtomicInteger()).incrementAndGet();
+        }
+        
+        long percentile(int percentile) {
+            List<Long> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            return sorted.get((int) Math.ceil(percentile / 100.0 * sorted.size()) - 1);
+        }
+        
+        int requestsTo(ServiceInstance instance) {
+            AtomicInteger count = requests.get(instance);
+            return count == null ? 0 : count.get();
+        }
+    }
+}
\ No newline at end of file
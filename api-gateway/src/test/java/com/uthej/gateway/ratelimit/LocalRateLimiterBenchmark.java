@@ -0,0 +1,66 @@
+package com.uthej.gateway.ratelimit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limit decisions per second from 8 threads, all for one client or spread
+ * over many. {@code allowed} never runs out of tokens, {@code rejected} always
+ * has, so the two measure the accepting and the refusing path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class LocalRateLimiterBenchmark {
+    
+    @Param({"1", "10000"})
+    public int clients;
+    
+    private LocalRateLimiter unlimited;
+    private LocalRateLimiter exhausted;
+    private String[] keys;
+    
+    @Setup(Level.Trial)
+    public void start() {
+        unlimited = new LocalRateLimiter(null, 1_000_000_000, 1_000_000_000);
+        exhausted = new LocalRateLimiter(null, 1, 1);
+        keys = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            keys[i] = "10.0." + (i >> 8) + "." + (i & 0xff);
+            exhausted.isAllowed("product-service", keys[i]).block();
+        }
+    }
+    
+    @Benchmark
+    public RateLimiter.Response allowed() {
+        return unlimited.isAllowed("product-service", key()).block();
+    }
+    
+    @Benchmark
+    public RateLimiter.Response rejected() {
+        return exhausted.isAllowed("product-service", key()).block();
+    }
+    
+    private String key() {
+        return keys[ThreadLocalRandom.current().nextInt(clients)];
+    }
+}
\ No newline at end of file
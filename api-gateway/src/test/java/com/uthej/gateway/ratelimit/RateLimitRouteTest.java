@@ -0,0 +1,228 @@
+package com.uthej.gateway.ratelimit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.uthej.gateway.filter.SingleFlightGatewayFilterFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The product route's RequestRateLimiter end to end, against a local
+ * product-service stub: one token a second with a burst of 3 per client, and
+ * buckets dropped after 300 ms full.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "gateway.rate-limit.replenish-rate=1",
+        "gateway.rate-limit.burst-capacity=3",
+        "gateway.rate-limit.idle-timeout=300ms",
+        // Eviction is driven by the test
+        "gateway.rate-limit.eviction-interval-ms=3600000",
+        "gateway.rate-limit.trusted-proxies=1"
+})
+class RateLimitRouteTest {
+    
+    private static final StubProductService stub = new StubProductService();
+    
+    @Autowired
+    private WebTestClient webTestClient;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @Autowired
+    private LocalRateLimiter rateLimiter;
+    
+    @DynamicPropertySource
+    static void productService(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.discovery.client.simple.instances.product-service[0].uri", stub::uri);
+    }
+    
+    @AfterAll
+    static void stopStub() {
+        stub.stop();
+    }
+    
+    @BeforeEach
+    void clearCache() {
+        cacheManager.getCache("gateway-responses").clear();
+        stub.calls.set(0);
+    }
+    
+    @Test
+    void burstIsAllowedThenRejectedUntilATokenRefills() throws InterruptedException {
+        // Each test uses its own client address so earlier requests do not drain the bucket
+        get("/api/products/1", "10.1.0.9").expectStatus().isOk();
+        for (int remaining = 2; remaining >= 0; remaining--) {
+            get("/api/products/1", "10.1.0.1")
+                    .expectStatus().isOk()
+                    .expectHeader().valueEquals(LocalRateLimiter.REMAINING_HEADER, Integer.toString(remaining))
+                    .expectHeader().valueEquals(LocalRateLimiter.REPLENISH_RATE_HEADER, "1")
+                    .expectHeader().valueEquals(LocalRateLimiter.BURST_CAPACITY_HEADER, "3");
+        }
+        
+        EntityExchangeResult<byte[]> rejected = get("/api/products/1", "10.1.0.1")
+                .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS)
+                .expectHeader().valueEquals(LocalRateLimiter.REMAINING_HEADER, "0")
+                .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "1")
+                .expectBody().returnResult();
+        long waitMillis = Long.parseLong(rejected.getResponseHeaders().getFirst(LocalRateLimiter.RETRY_AFTER_MILLIS_HEADER));
+        assertThat(waitMillis).isBetween(1L, 1001L);
+        
+        // One token a second, taken as soon as it is back
+        Thread.sleep(waitMillis + 20);
+        get("/api/products/1", "10.1.0.1")
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(LocalRateLimiter.REMAINING_HEADER, "0");
+        get("/api/products/1", "10.1.0.1")
+                .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        
+        // Another client has a bucket of its own
+        get("/api/products/1", "10.1.0.2")
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(LocalRateLimiter.REMAINING_HEADER, "2");
+    }
+    
+    @Test
+    void coalescedRequestsAreCountedBeforeSingleFlight() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        stub.hold = release;
+        try {
+            List<CompletableFuture<EntityExchangeResult<byte[]>>> requests = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                requests.add(CompletableFuture.supplyAsync(() -> get("/api/products/2", "10.1.0.3")
+                        .expectBody().returnResult()));
+            }
+            assertThat(stub.arrived.await(5, TimeUnit.SECONDS)).isTrue();
+            // Give the other two time to join the flight
+            Thread.sleep(200);
+            
+            // Rejected while the three are still waiting for the one upstream call
+            get("/api/products/2", "10.1.0.3")
+                    .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+            
+            release.countDown();
+            int coalesced = 0;
+            for (CompletableFuture<EntityExchangeResult<byte[]>> request : requests) {
+                EntityExchangeResult<byte[]> result = request.get(5, TimeUnit.SECONDS);
+                assertThat(result.getStatus()).isEqualTo(HttpStatus.OK);
+                if ("true".equals(result.getResponseHeaders().getFirst(SingleFlightGatewayFilterFactory.COALESCED_HEADER))) {
+                    coalesced++;
+                }
+            }
+            assertThat(coalesced).isEqualTo(2);
+            assertThat(stub.calls).hasValue(1);
+        } finally {
+            stub.hold = null;
+        }
+    }
+    
+    @Test
+    void bucketsAreDroppedOnceFullForTheIdleTimeout() throws InterruptedException {
+        get("/api/products/3", "10.1.0.4").expectStatus().isOk();
+        get("/api/products/3", "10.1.0.4").expectStatus().isOk();
+        String key = "product-service:10.1.0.4";
+        
+        rateLimiter.evictIdle();
+        assertThat(clientBuckets()).containsKey(key);
+        
+        // Full again after 2 s, then idle for the 300 ms timeout
+        Thread.sleep(2500);
+        rateLimiter.evictIdle();
+        assertThat(clientBuckets()).doesNotContainKey(key);
+        
+        get("/api/products/3", "10.1.0.4")
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(LocalRateLimiter.REMAINING_HEADER, "2");
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Map<String, ?> clientBuckets() {
+        return (Map<String, ?>) ReflectionTestUtils.getField(rateLimiter, "clientBuckets");
+    }
+    
+    private WebTestClient.ResponseSpec get(String uri, String clientAddress) {
+        return webTestClient.get().uri(uri)
+                .header("X-Forwarded-For", clientAddress)
+                .exchange();
+    }
+    
+    /**
+     * Answers every product lookup with a small JSON body, optionally holding it
+     * until released.
+     */
+    private static final class StubProductService {
+        
+        private final HttpServer server;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final CountDownLatch arrived = new CountDownLatch(1);
+        private volatile CountDownLatch hold;
+        
+        StubProductService() {
+            try {
+                server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            server.createContext("/products", this::handle);
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.start();
+        }
+        
+        String uri() {
+            return "http://localhost:" + server.getAddress().getPort();
+        }
+        
+        void stop() {
+            server.stop(0);
+        }
+        
+        private void handle(HttpExchange exchange) throws IOException {
+            calls.incrementAndGet();
+            try {
+                CountDownLatch latch = hold;
+                if (latch != null) {
+                    arrived.countDown();
+                    latch.await(5, TimeUnit.SECONDS);
+                }
+                byte[] body = "{\"id\":1,\"name\":\"Stub\"}".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.uthej.order.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.uthej.order.config.CacheConfig;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Near cache of product-service responses (Caffeine, W-TinyLFU eviction with a TTL).
+ * Cached stock quantities are never trusted: stock is checked by product-service
+ * when it is reserved.
+ */
+@Component
+public class ProductCache {
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    private Cache<Object, Object> cache;
+    
+    @PostConstruct
+    public void init() {
+        cache = ((CaffeineCache) cacheManager.getCache(CacheConfig.PRODUCTS_CACHE)).getNativeCache();
+    }
+    
+    /**
+     * Returns the cached products and loads the missing ones with a single call to
+     * {@code loader}. Products the loader does not return are not cached.
+     */
+    public Map<Long, ProductResponse> getAll(Collection<Long> productIds, Function<List<Long>, Map<Long, ProductResponse>> loader) {
+        Map<Object, Object> cached = cache.getAll(productIds, missing -> {
+            List<Long> ids = new ArrayList<>();
+            missing.forEach(id -> ids.add((Long) id));
+            return new HashMap<>(loader.apply(ids));
+        });
+        
+        Map<Long, ProductResponse> products = new HashMap<>();
+        cached.forEach((id, product) -> products.put((Long) id, (ProductResponse) product));
+        return products;
+    }
+    
+    public void invalidate(Long productId) {
+        cache.invalidate(productId);
+    }
+    
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
\ No newline at end of file
@@ -3,15 +3,25 @@ package com.uthej.order.client;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.List;
+
 @FeignClient(name = "product-service")
 public interface ProductClient {
     
     @GetMapping("/products/{id}")
     ProductResponse getProductById(@PathVariable Long id);
     
+    @GetMapping("/products/batch")
+    List<ProductResponse> getProductsByIds(@RequestParam List<Long> ids);
+    
     @PutMapping("/products/{id}/stock")
     Boolean updateStock(@PathVariable Long id, @RequestParam Integer quantity);
-} 
\ No newline at end of file
+    
+    @PostMapping("/products/stock/reservations")
+    List<StockReservationResult> reserveStock(@RequestBody List<StockReservationRequest> reservations);
+}
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.uthej.order.client;
+
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+/**
+ * Asks product-service for Smile, Jackson's binary encoding of JSON. Prices go
+ * over the wire as binary decimals and repeated field names as back-references,
+ * so product responses are smaller and cheaper to decode than JSON text. The
+ * Feign decoder picks the converter from the response content type, so a
+ * product-service without Smile support simply answers with JSON.
+ */
+@Component
+public class ProductClientContentNegotiation implements RequestInterceptor {
+    
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+    
+    private static final String ACCEPT = SMILE_VALUE + ", " + MediaType.APPLICATION_JSON_VALUE + ";q=0.9";
+    
+    @Value("${product-client.smile.enabled:true}")
+    private boolean enabled;
+    
+    @Override
+    public void apply(RequestTemplate template) {
+        if (!enabled || template.headers().containsKey(HttpHeaders.ACCEPT)) {
+            return;
+        }
+        if (template.feignTarget() != null && "product-service".equals(template.feignTarget().name())) {
+            template.header(HttpHeaders.ACCEPT, ACCEPT);
+        }
+    }
+}
\ No newline at end of file
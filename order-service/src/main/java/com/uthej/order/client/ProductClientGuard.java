@@ -0,0 +1,116 @@
+package com.uthej.order.client;
+
+import feign.Capability;
+import feign.Client;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Isolates order processing from a slow or failing product-service. Every Feign
+ * call to it passes a semaphore bulkhead, which caps the request threads that can
+ * be waiting on product-service at once, and a circuit breaker, which fails calls
+ * fast while product-service keeps erroring. Connection errors, timeouts and 5xx
+ * responses count as failures; rejected calls throw
+ * {@link ProductServiceUnavailableException}.
+ */
+@Component
+public class ProductClientGuard implements Capability {
+    
+    private static final Logger log = LoggerFactory.getLogger(ProductClientGuard.class);
+    
+    private final CircuitBreaker circuitBreaker;
+    private final Semaphore bulkhead;
+    private final long maxWaitMillis;
+    private final Counter circuitOpenRejections;
+    private final Counter bulkheadRejections;
+    
+    public ProductClientGuard(
+            MeterRegistry meterRegistry,
+            @Value("${product-client.circuit-breaker.window-size:20}") int windowSize,
+            @Value("${product-client.circuit-breaker.minimum-calls:10}") int minimumCalls,
+            @Value("${product-client.circuit-breaker.failure-rate-threshold:50}") int failureRateThreshold,
+            @Value("${product-client.circuit-breaker.open-duration-ms:5000}") long openDurationMs,
+            @Value("${product-client.circuit-breaker.half-open-calls:3}") int halfOpenCalls,
+            @Value("${product-client.bulkhead.max-concurrent-calls:25}") int maxConcurrentCalls,
+            @Value("${product-client.bulkhead.max-wait-ms:0}") long maxWaitMillis) {
+        this.circuitBreaker = new CircuitBreaker(windowSize, minimumCalls, failureRateThreshold, openDurationMs, halfOpenCalls);
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.maxWaitMillis = maxWaitMillis;
+        
+        Gauge.builder("product.client.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("Product-service circuit breaker state: 0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+        Gauge.builder("product.client.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .description("Free product-service call slots")
+                .register(meterRegistry);
+        circuitOpenRejections = Counter.builder("product.client.rejected")
+                .tag("reason", "circuit_open")
+                .register(meterRegistry);
+        bulkheadRejections = Counter.builder("product.client.rejected")
+                .tag("reason", "bulkhead_full")
+                .register(meterRegistry);
+    }
+    
+    @Override
+    public Client enrich(Client client) {
+        return (request, options) -> {
+            acquireBulkhead();
+            try {
+                if (!circuitBreaker.tryAcquirePermission()) {
+                    circuitOpenRejections.increment();
+                    throw new ProductServiceUnavailableException("Product service circuit is open",
+                            circuitBreaker.getRemainingOpenMillis());
+                }
+                feign.Response response;
+                try {
+                    response = client.execute(request, options);
+                } catch (Exception e) {
+                    onFailure();
+                    throw e;
+                }
+                if (response.status() >= 500) {
+                    onFailure();
+                } else {
+                    circuitBreaker.onSuccess();
+                }
+                return response;
+            } finally {
+                bulkhead.release();
+            }
+        };
+    }
+    
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+    
+    private void acquireBulkhead() {
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            bulkheadRejections.increment();
+            throw new ProductServiceUnavailableException("Too many concurrent product service calls", 0);
+        }
+    }
+    
+    private void onFailure() {
+        CircuitBreaker.State before = circuitBreaker.getState();
+        circuitBreaker.onFailure();
+        if (before != CircuitBreaker.State.OPEN && circuitBreaker.getState() == CircuitBreaker.State.OPEN) {
+            log.warn("Product service circuit opened");
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,321 @@
+package com.uthej.order.client;
+
+import feign.Capability;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerUriTools;
+import org.springframework.cloud.openfeign.loadbalancer.FeignBlockingLoadBalancerClient;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hedged GETs to product-service, enabled with {@code product-client.hedging.enabled}.
+ * A read goes to a randomly chosen instance; if it has not answered after the
+ * configured percentile of recent read latencies, the same request is sent to a
+ * different instance and whichever answers first is used. Hedges are paid for from
+ * a budget that grows by a fixed share of every read, so hedging can add at most
+ * that share of extra load even when product-service is slow as a whole. Runs
+ * inside {@link ProductClientGuard}, which sees a hedged read as a single call.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ProductClientHedging implements Capability {
+    
+    private static final String SERVICE_ID = "product-service";
+    private static final int LATENCY_SAMPLES = 1024;
+    private static final int MIN_LATENCY_SAMPLES = 50;
+    private static final long DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int BUDGET_BURST = 10;
+    
+    private final boolean enabled;
+    private final int delayPercentile;
+    private final long minDelayNanos;
+    private final DiscoveryClient discoveryClient;
+    private final ExecutorService executor;
+    private final LatencyWindow latencies = new LatencyWindow(LATENCY_SAMPLES);
+    private final HedgeBudget budget;
+    private final Counter hedgesSent;
+    private final Counter hedgesWon;
+    private final Counter budgetExhausted;
+    
+    private volatile long delayNanos;
+    private volatile long delayComputedAt = System.nanoTime() - DELAY_REFRESH_NANOS;
+    
+    public ProductClientHedging(
+            MeterRegistry meterRegistry,
+            DiscoveryClient discoveryClient,
+            @Qualifier("productHedgeExecutor") ExecutorService executor,
+            @Value("${product-client.hedging.enabled:false}") boolean enabled,
+            @Value("${product-client.hedging.delay-percentile:95}") int delayPercentile,
+            @Value("${product-client.hedging.min-delay-ms:20}") long minDelayMs,
+            @Value("${product-client.hedging.max-extra-load-percent:5}") int maxExtraLoadPercent) {
+        this.discoveryClient = discoveryClient;
+        this.executor = executor;
+        this.enabled = enabled;
+        this.delayPercentile = delayPercentile;
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMs);
+        this.delayNanos = minDelayNanos;
+        this.budget = new HedgeBudget(maxExtraLoadPercent, BUDGET_BURST);
+        
+        hedgesSent = Counter.builder("product.client.hedges.sent")
+                .description("Product-service reads that were sent a second time to another instance")
+                .register(meterRegistry);
+        hedgesWon = Counter.builder("product.client.hedges.won")
+                .description("Hedged product-service reads answered by the hedge first")
+                .register(meterRegistry);
+        budgetExhausted = Counter.builder("product.client.hedges.skipped")
+                .tag("reason", "budget")
+                .register(meterRegistry);
+        Gauge.builder("product.client.hedges.delay", this, hedging -> TimeUnit.NANOSECONDS.toMillis(hedging.delayNanos))
+                .description("Current hedge delay in milliseconds")
+                .register(meterRegistry);
+    }
+    
+    @Override
+    public Client enrich(Client client) {
+        if (!enabled || !(client instanceof FeignBlockingLoadBalancerClient)) {
+            return client;
+        }
+        Client direct = ((FeignBlockingLoadBalancerClient) client).getDelegate();
+        return (request, options) -> {
+            if (request.httpMethod() != Request.HttpMethod.GET
+                    || !SERVICE_ID.equalsIgnoreCase(URI.create(request.url()).getHost())) {
+                return client.execute(request, options);
+            }
+            List<ServiceInstance> instances = discoveryClient.getInstances(SERVICE_ID);
+            if (instances.size() < 2) {
+                return client.execute(request, options);
+            }
+            return executeHedged(direct, request, options, instances);
+        };
+    }
+    
+    private Response executeHedged(Client direct, Request request, Request.Options options,
+                                   List<ServiceInstance> instances) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(instances.size());
+        int second = random.nextInt(instances.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        
+        budget.deposit();
+        HedgedCall call = new HedgedCall(direct, request, options);
+        if (!call.start(instances.get(first), false)) {
+            return direct.execute(toInstance(request, instances.get(first)), options);
+        }
+        try {
+            try {
+                return call.result.get(hedgeDelayNanos(), TimeUnit.NANOSECONDS).response();
+            } catch (TimeoutException e) {
+                if (!budget.tryWithdraw()) {
+                    budgetExhausted.increment();
+                } else if (call.start(instances.get(second), true)) {
+                    hedgesSent.increment();
+                } else {
+                    budget.refund();
+                }
+            }
+            Leg winner = call.result.get();
+            if (winner.hedge()) {
+                hedgesWon.increment();
+            }
+            return winner.response();
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            call.abandon();
+            throw new InterruptedIOException("Interrupted while waiting for product service");
+        }
+    }
+    
+    /**
+     * The configured percentile of recent read latencies, recomputed at most once a second.
+     */
+    private long hedgeDelayNanos() {
+        long now = System.nanoTime();
+        if (now - delayComputedAt >= DELAY_REFRESH_NANOS) {
+            delayComputedAt = now;
+            long percentile = latencies.percentile(delayPercentile, MIN_LATENCY_SAMPLES);
+            delayNanos = Math.max(minDelayNanos, percentile);
+        }
+        return delayNanos;
+    }
+    
+    private static Request toInstance(Request request, ServiceInstance instance) {
+        URI uri = LoadBalancerUriTools.reconstructURI(instance, URI.create(request.url()));
+        return Request.create(request.httpMethod(), uri.toString(), request.headers(), request.body(),
+                request.charset(), request.requestTemplate());
+    }
+    
+    private static IOException rethrow(Throwable cause) {
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IOException(cause);
+    }
+    
+    private record Leg(Response response, boolean hedge) {
+    }
+    
+    /**
+     * The legs of one read. The first response completes the result and later ones
+     * are closed; the result only fails once every leg that was started has failed.
+     */
+    private final class HedgedCall {
+        
+        private final Client direct;
+        private final Request request;
+        private final Request.Options options;
+        private final CompletableFuture<Leg> result = new CompletableFuture<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        
+        HedgedCall(Client direct, Request request, Request.Options options) {
+            this.direct = direct;
+            this.request = request;
+            this.options = options;
+        }
+        
+        boolean start(ServiceInstance instance, boolean hedge) {
+            pending.incrementAndGet();
+            try {
+                executor.execute(() -> run(instance, hedge));
+                return true;
+            } catch (RejectedExecutionException e) {
+                pending.decrementAndGet();
+                return false;
+            }
+        }
+        
+        void abandon() {
+            if (!result.cancel(false)) {
+                Leg leg = result.getNow(null);
+                if (leg != null) {
+                    leg.response().close();
+                }
+            }
+        }
+        
+        private void run(ServiceInstance instance, boolean hedge) {
+            long start = System.nanoTime();
+            Response response;
+            try {
+                response = direct.execute(toInstance(request, instance), options);
+            } catch (Throwable e) {
+                if (pending.decrementAndGet() == 0) {
+                    result.completeExceptionally(e);
+                }
+                return;
+            }
+            latencies.record(System.nanoTime() - start);
+            if (!result.complete(new Leg(response, hedge))) {
+                response.close();
+            }
+            pending.decrementAndGet();
+        }
+    }
+    
+    /**
+     * Ring of the most recent read latencies.
+     */
+    static final class LatencyWindow {
+        
+        // Guarded by "this"
+        private final long[] samples;
+        private int position;
+        private int size;
+        
+        LatencyWindow(int capacity) {
+            this.samples = new long[capacity];
+        }
+        
+        synchronized void record(long nanos) {
+            samples[position] = nanos;
+            position = (position + 1) % samples.length;
+            size = Math.min(size + 1, samples.length);
+        }
+        
+        /**
+         * Returns the percentile in nanoseconds, or 0 while fewer than {@code minSamples} were recorded.
+         */
+        long percentile(int percentile, int minSamples) {
+            long[] sorted;
+            synchronized (this) {
+                if (size < minSamples) {
+                    return 0;
+                }
+                sorted = Arrays.copyOf(samples, size);
+            }
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+    
+    /**
+     * Every read deposits {@code percent}/100 of a hedge, every hedge withdraws one.
+     * The balance is kept in hundredths and capped at {@code burst} hedges.
+     */
+    static final class HedgeBudget {
+        
+        private final int percent;
+        private final long capacity;
+        private final AtomicLong balance = new AtomicLong();
+        
+        HedgeBudget(int percent, int burst) {
+            this.percent = percent;
+            this.capacity = burst * 100L;
+        }
+        
+        void deposit() {
+            balance.accumulateAndGet(percent, (current, amount) -> Math.min(capacity, current + amount));
+        }
+        
+        boolean tryWithdraw() {
+            while (true) {
+                long current = balance.get();
+                if (current < 100) {
+                    return false;
+                }
+                if (balance.compareAndSet(current, current - 100)) {
+                    return true;
+                }
+            }
+        }
+        
+        void refund() {
+            balance.addAndGet(100);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.uthej.order.client;
+
+/**
+ * Thrown without calling product-service when its circuit breaker is open, its
+ * bulkhead is full or the pool for parallel product lookups is saturated.
+ */
+public class ProductServiceUnavailableException extends RuntimeException {
+    
+    private final long retryAfterMillis;
+    
+    public ProductServiceUnavailableException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+    
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.uthej.order.client;
+
+public class StockReservationRequest {
+    private Long productId;
+    private Integer quantity;
+    
+    // Constructors
+    public StockReservationRequest() {}
+    
+    public StockReservationRequest(Long productId, Integer quantity) {
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+    
+    // Getters and Setters
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    
+    public Integer getQuantity() {
+        return quantity;
+    }
+    
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.uthej.order.client;
+
+public class StockReservationResult {
+    private Long productId;
+    private Integer quantity;
+    private Integer availableQuantity;
+    private boolean reserved;
+    private String message;
+    
+    // Constructors
+    public StockReservationResult() {}
+    
+    // Getters and Setters
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    
+    public Integer getQuantity() {
+        return quantity;
+    }
+    
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+    
+    public Integer getAvailableQuantity() {
+        return availableQuantity;
+    }
+    
+    public void setAvailableQuantity(Integer availableQuantity) {
+        this.availableQuantity = availableQuantity;
+    }
+    
+    public boolean isReserved() {
+        return reserved;
+    }
+    
+    public void setReserved(boolean reserved) {
+        this.reserved = reserved;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
\ No newline at end of file
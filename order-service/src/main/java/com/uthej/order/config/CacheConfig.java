@@ -0,0 +1,33 @@
+package com.uthej.order.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+    
+    public static final String PRODUCTS_CACHE = "products";
+    
+    /**
+     * Products looked up while validating orders. An entry can be up to the TTL
+     * stale; stock is checked again by product-service when it is reserved, and a
+     * failed reservation invalidates the entry.
+     */
+    @Bean
+    public CaffeineCacheManager cacheManager(
+            @Value("${product-cache.max-size:10000}") long maxSize,
+            @Value("${product-cache.ttl-seconds:60}") long ttlSeconds) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(PRODUCTS_CACHE, Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build());
+        return cacheManager;
+    }
+}
\ No newline at end of file
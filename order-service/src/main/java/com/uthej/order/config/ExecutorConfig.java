@@ -0,0 +1,55 @@
+package com.uthej.order.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class ExecutorConfig {
+    
+    /**
+     * Bounded pool for fanning out per-item product lookups. A full queue rejects
+     * immediately rather than letting lookups pile up behind a slow product-service.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService productLookupExecutor(
+            @Value("${order.validation.parallelism:16}") int parallelism,
+            @Value("${order.validation.queue-capacity:256}") int queueCapacity) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelism, parallelism, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "product-lookup-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+    
+    /**
+     * Runs both legs of hedged product-service reads. There is no queue: when every
+     * thread is busy the read is not hedged and goes through the load balancer as usual.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService productHedgeExecutor(
+            @Value("${product-client.hedging.max-threads:64}") int maxThreads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(0, maxThreads, 30, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "product-hedge-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+}
\ No newline at end of file
@@ -1,30 +1,81 @@
 package com.uthej.order.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.uthej.order.client.ProductServiceUnavailableException;
 import com.uthej.order.dto.OrderDto;
+import com.uthej.order.dto.OrderIntakeDto;
+import com.uthej.order.dto.OrderSummaryDto;
 import com.uthej.order.model.OrderStatus;
+import com.uthej.order.service.OrderIntakeService;
 import com.uthej.order.service.OrderService;
+import feign.FeignException;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/orders")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = OrderController.NEXT_CURSOR_HEADER)
 public class OrderController {
     
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    
     @Autowired
     private OrderService orderService;
     
+    @Autowired
+    private OrderIntakeService orderIntakeService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
     @GetMapping
-    public ResponseEntity<List<OrderDto>> getAllOrders() {
-        List<OrderDto> orders = orderService.getAllOrders();
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<List<OrderSummaryDto>> getAllOrders(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit) {
+        Slice<OrderSummaryDto> orders = orderService.getAllOrders(after, limit);
+        return page(orders);
+    }
+    
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportOrders(@RequestParam(required = false) Long after) {
+        // One JSON document per line, written as rows are read so memory stays flat for any result size
+        StreamingResponseBody body = outputStream -> {
+            ObjectWriter writer = objectMapper.writerFor(OrderSummaryDto.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                orderService.forEachOrder(after, order -> {
+                    try {
+                        writer.writeValue(generator, order);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
     
     @GetMapping("/{id}")
@@ -35,35 +86,70 @@ public class OrderController {
     }
     
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<OrderDto>> getOrdersByUserId(@PathVariable Long userId) {
-        List<OrderDto> orders = orderService.getOrdersByUserId(userId);
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<List<OrderSummaryDto>> getOrdersByUserId(
+            @PathVariable Long userId,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit) {
+        Slice<OrderSummaryDto> orders = orderService.getOrdersByUserId(userId, after, limit);
+        return page(orders);
     }
     
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<OrderDto>> getOrdersByStatus(@PathVariable OrderStatus status) {
-        List<OrderDto> orders = orderService.getOrdersByStatus(status);
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<List<OrderSummaryDto>> getOrdersByStatus(
+            @PathVariable OrderStatus status,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit) {
+        Slice<OrderSummaryDto> orders = orderService.getOrdersByStatus(status, after, limit);
+        return page(orders);
     }
     
     @GetMapping("/date-range")
-    public ResponseEntity<List<OrderDto>> getOrdersByDateRange(
+    public ResponseEntity<List<OrderSummaryDto>> getOrdersByDateRange(
             @RequestParam LocalDateTime startDate,
-            @RequestParam LocalDateTime endDate) {
-        List<OrderDto> orders = orderService.getOrdersByDateRange(startDate, endDate);
-        return ResponseEntity.ok(orders);
+            @RequestParam LocalDateTime endDate,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit) {
+        Slice<OrderSummaryDto> orders = orderService.getOrdersByDateRange(startDate, endDate, after, limit);
+        return page(orders);
     }
     
     @PostMapping
-    public ResponseEntity<OrderDto> createOrder(@Valid @RequestBody OrderDto orderDto) {
+    public ResponseEntity<?> createOrder(@Valid @RequestBody OrderDto orderDto) {
+        if (orderIntakeService.isEnabled()) {
+            Optional<OrderIntakeDto> ticket = orderIntakeService.submit(orderDto);
+            if (ticket.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .build();
+            }
+            return ResponseEntity.accepted()
+                    .location(URI.create(ticket.get().getStatusUrl()))
+                    .body(ticket.get());
+        }
+        
         try {
             OrderDto createdOrder = orderService.createOrder(orderDto);
             return ResponseEntity.status(HttpStatus.CREATED).body(createdOrder);
+        } catch (ProductServiceUnavailableException e) {
+            return unavailable(e.getRetryAfterMillis());
+        } catch (FeignException e) {
+            // Timeouts (no status) and server errors are product-service's fault, not the order's
+            if (e.status() < 0 || e.status() >= 500) {
+                return unavailable(0);
+            }
+            return ResponseEntity.badRequest().build();
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
         }
     }
     
+    @GetMapping("/intake/{ticketId}")
+    public ResponseEntity<OrderIntakeDto> getIntakeStatus(@PathVariable String ticketId) {
+        Optional<OrderIntakeDto> ticket = orderIntakeService.getTicket(ticketId);
+        return ticket.map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
     @PutMapping("/{id}/status")
     public ResponseEntity<OrderDto> updateOrderStatus(
             @PathVariable Long id,
@@ -81,8 +167,33 @@ public class OrderController {
         try {
             orderService.cancelOrder(id);
             return ResponseEntity.ok().build();
+        } catch (ProductServiceUnavailableException e) {
+            return unavailable(e.getRetryAfterMillis());
+        } catch (FeignException e) {
+            // The order stays cancelled; a retry releases the items whose stock is not back yet
+            if (e.status() < 0 || e.status() >= 500) {
+                return unavailable(0);
+            }
+            return ResponseEntity.notFound().build();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
     }
-} 
\ No newline at end of file
+    
+    private static <T> ResponseEntity<T> unavailable(long retryAfterMillis) {
+        long retryAfterSeconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(retryAfterMillis + 999));
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .build();
+    }
+    
+    private ResponseEntity<List<OrderSummaryDto>> page(Slice<OrderSummaryDto> orders) {
+        // The next cursor is the last id on this page; pass it back as ?after= to continue
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (orders.hasNext()) {
+            List<OrderSummaryDto> content = orders.getContent();
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(content.get(content.size() - 1).getId()));
+        }
+        return response.body(orders.getContent());
+    }
+}
\ No newline at end of file
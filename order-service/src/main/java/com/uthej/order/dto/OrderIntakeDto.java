@@ -0,0 +1,83 @@
+package com.uthej.order.dto;
+
+import com.uthej.order.model.OrderStatus;
+
+import java.time.LocalDateTime;
+
+public class OrderIntakeDto {
+    private String ticketId;
+    private OrderStatus status;
+    private Long orderId;
+    private String message;
+    private String statusUrl;
+    private LocalDateTime submittedAt;
+    private LocalDateTime completedAt;
+    
+    // Constructors
+    public OrderIntakeDto() {}
+    
+    public OrderIntakeDto(String ticketId, OrderStatus status, Long orderId, String message) {
+        this.ticketId = ticketId;
+        this.status = status;
+        this.orderId = orderId;
+        this.message = message;
+        this.statusUrl = "/orders/intake/" + ticketId;
+    }
+    
+    // Getters and Setters
+    public String getTicketId() {
+        return ticketId;
+    }
+    
+    public void setTicketId(String ticketId) {
+        this.ticketId = ticketId;
+    }
+    
+    public OrderStatus getStatus() {
+        return status;
+    }
+    
+    public void setStatus(OrderStatus status) {
+        this.status = status;
+    }
+    
+    public Long getOrderId() {
+        return orderId;
+    }
+    
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    public void setMessage(String message) {
+        this.message = message;
+    }
+    
+    public String getStatusUrl() {
+        return statusUrl;
+    }
+    
+    public void setStatusUrl(String statusUrl) {
+        this.statusUrl = statusUrl;
+    }
+    
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+    
+    public void setSubmittedAt(LocalDateTime submittedAt) {
+        this.submittedAt = submittedAt;
+    }
+    
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+    
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+}
\ No newline at end of file
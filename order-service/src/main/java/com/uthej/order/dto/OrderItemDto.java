@@ -68,7 +68,7 @@ public class OrderItemDto {
     
     public void setQuantity(Integer quantity) {
         this.quantity = quantity;
-        this.totalPrice = this.unitPrice.multiply(BigDecimal.valueOf(quantity));
+        updateTotalPrice();
     }
     
     public BigDecimal getUnitPrice() {
@@ -77,7 +77,7 @@ public class OrderItemDto {
     
     public void setUnitPrice(BigDecimal unitPrice) {
         this.unitPrice = unitPrice;
-        this.totalPrice = unitPrice.multiply(BigDecimal.valueOf(this.quantity));
+        updateTotalPrice();
     }
     
     public BigDecimal getTotalPrice() {
@@ -87,4 +87,10 @@ public class OrderItemDto {
     public void setTotalPrice(BigDecimal totalPrice) {
         this.totalPrice = totalPrice;
     }
-} 
\ No newline at end of file
+    
+    private void updateTotalPrice() {
+        if (unitPrice != null && quantity != null) {
+            totalPrice = unitPrice.multiply(BigDecimal.valueOf(quantity));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.uthej.order.dto;
+
+import com.uthej.order.model.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public class OrderSummaryDto {
+    private Long id;
+    private Long userId;
+    private OrderStatus status;
+    private BigDecimal totalAmount;
+    private LocalDateTime orderDate;
+    
+    // Constructors
+    public OrderSummaryDto() {}
+    
+    public OrderSummaryDto(Long id, Long userId, OrderStatus status, BigDecimal totalAmount, LocalDateTime orderDate) {
+        this.id = id;
+        this.userId = userId;
+        this.status = status;
+        this.totalAmount = totalAmount;
+        this.orderDate = orderDate;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+    
+    public OrderStatus getStatus() {
+        return status;
+    }
+    
+    public void setStatus(OrderStatus status) {
+        this.status = status;
+    }
+    
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+    
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+    
+    public LocalDateTime getOrderDate() {
+        return orderDate;
+    }
+    
+    public void setOrderDate(LocalDateTime orderDate) {
+        this.orderDate = orderDate;
+    }
+}
\ No newline at end of file
@@ -11,7 +11,8 @@ import java.math.BigDecimal;
 public class OrderItem {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne
@@ -41,6 +42,10 @@ public class OrderItem {
     @Column(nullable = false)
     private BigDecimal totalPrice;
     
+    // Set once the item's stock is given back after a cancellation, so a retried cancel skips it
+    @Column(nullable = false)
+    private boolean stockReleased;
+    
     // Constructors
     public OrderItem() {}
     
@@ -91,7 +96,7 @@ public class OrderItem {
     
     public void setQuantity(Integer quantity) {
         this.quantity = quantity;
-        this.totalPrice = this.unitPrice.multiply(BigDecimal.valueOf(quantity));
+        updateTotalPrice();
     }
     
     public BigDecimal getUnitPrice() {
@@ -100,7 +105,7 @@ public class OrderItem {
     
     public void setUnitPrice(BigDecimal unitPrice) {
         this.unitPrice = unitPrice;
-        this.totalPrice = unitPrice.multiply(BigDecimal.valueOf(this.quantity));
+        updateTotalPrice();
     }
     
     public BigDecimal getTotalPrice() {
@@ -110,4 +115,18 @@ public class OrderItem {
     public void setTotalPrice(BigDecimal totalPrice) {
         this.totalPrice = totalPrice;
     }
-} 
\ No newline at end of file
+    
+    public boolean isStockReleased() {
+        return stockReleased;
+    }
+    
+    public void setStockReleased(boolean stockReleased) {
+        this.stockReleased = stockReleased;
+    }
+    
+    private void updateTotalPrice() {
+        if (unitPrice != null && quantity != null) {
+            totalPrice = unitPrice.multiply(BigDecimal.valueOf(quantity));
+        }
+    }
+}
\ No newline at end of file
@@ -1,12 +1,25 @@
 package com.uthej.order.repository;
 
+import com.uthej.order.dto.OrderSummaryDto;
 import com.uthej.order.model.Order;
 import com.uthej.order.model.OrderStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
@@ -14,4 +27,41 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByStatus(OrderStatus status);
     List<Order> findByOrderDateBetween(LocalDateTime startDate, LocalDateTime endDate);
     List<Order> findByUserIdAndStatus(Long userId, OrderStatus status);
-} 
\ No newline at end of file
+    
+    @EntityGraph(attributePaths = "orderItems")
+    Optional<Order> findWithItemsById(Long id);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE OrderItem i SET i.stockReleased = true WHERE i.id = :itemId")
+    int markStockReleased(@Param("itemId") Long itemId);
+    
+    // Keyset pages of summaries (no items): rows after the given id, in id order
+    @Query("SELECT new com.uthej.order.dto.OrderSummaryDto(o.id, o.userId, o.status, o.totalAmount, o.orderDate) " +
+           "FROM Order o WHERE o.id > :after ORDER BY o.id")
+    Slice<OrderSummaryDto> findSummariesAfter(@Param("after") Long after, Pageable pageable);
+    
+    // Forward-only cursor for exports; rows are fetched from the driver in chunks instead of all at once
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.uthej.order.dto.OrderSummaryDto(o.id, o.userId, o.status, o.totalAmount, o.orderDate) " +
+           "FROM Order o WHERE o.id > :after ORDER BY o.id")
+    Stream<OrderSummaryDto> streamSummariesAfter(@Param("after") Long after);
+    
+    @Query("SELECT new com.uthej.order.dto.OrderSummaryDto(o.id, o.userId, o.status, o.totalAmount, o.orderDate) " +
+           "FROM Order o WHERE o.userId = :userId AND o.id > :after ORDER BY o.id")
+    Slice<OrderSummaryDto> findSummariesByUserIdAfter(@Param("userId") Long userId, @Param("after") Long after, Pageable pageable);
+    
+    @Query("SELECT new com.uthej.order.dto.OrderSummaryDto(o.id, o.userId, o.status, o.totalAmount, o.orderDate) " +
+           "FROM Order o WHERE o.status = :status AND o.id > :after ORDER BY o.id")
+    Slice<OrderSummaryDto> findSummariesByStatusAfter(@Param("status") OrderStatus status, @Param("after") Long after, Pageable pageable);
+    
+    @Query("SELECT new com.uthej.order.dto.OrderSummaryDto(o.id, o.userId, o.status, o.totalAmount, o.orderDate) " +
+           "FROM Order o WHERE o.orderDate BETWEEN :startDate AND :endDate AND o.id > :after ORDER BY o.id")
+    Slice<OrderSummaryDto> findSummariesByOrderDateBetweenAfter(@Param("startDate") LocalDateTime startDate,
+                                                                @Param("endDate") LocalDateTime endDate,
+                                                                @Param("after") Long after,
+                                                                Pageable pageable);
+}
\ No newline at end of file
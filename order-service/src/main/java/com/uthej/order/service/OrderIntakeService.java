@@ -0,0 +1,218 @@
+package com.uthej.order.service;
+
+import com.uthej.order.dto.OrderDto;
+import com.uthej.order.dto.OrderIntakeDto;
+import com.uthej.order.model.Order;
+import com.uthej.order.model.OrderStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Optional asynchronous order intake. Accepted orders wait in a bounded queue;
+ * worker threads validate and reserve stock for each order, then persist each
+ * drained batch with a single saveAll. Orders are saved PENDING, as the
+ * synchronous path saves them. Progress is tracked per ticket, which carries the
+ * order id and status once saved. On shutdown new orders are refused and the
+ * workers finish the queue within the shutdown timeout; orders still queued
+ * after it are cancelled.
+ */
+@Service
+public class OrderIntakeService {
+    
+    private static final Logger log = LoggerFactory.getLogger(OrderIntakeService.class);
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Value("${order.intake.async-enabled:false}")
+    private boolean enabled;
+    
+    @Value("${order.intake.queue-capacity:1000}")
+    private int queueCapacity;
+    
+    @Value("${order.intake.workers:4}")
+    private int workers;
+    
+    @Value("${order.intake.batch-size:50}")
+    private int batchSize;
+    
+    @Value("${order.intake.ticket-retention-minutes:10}")
+    private long ticketRetentionMinutes;
+    
+    @Value("${order.intake.shutdown-timeout-ms:30000}")
+    private long shutdownTimeoutMs;
+    
+    private final Map<String, OrderIntakeDto> tickets = new ConcurrentHashMap<>();
+    private BlockingQueue<IntakeRequest> queue;
+    private ExecutorService workerPool;
+    private volatile boolean accepting;
+    
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        accepting = true;
+        AtomicInteger threadCount = new AtomicInteger();
+        workerPool = Executors.newFixedThreadPool(workers,
+                runnable -> new Thread(runnable, "order-intake-" + threadCount.incrementAndGet()));
+        for (int i = 0; i < workers; i++) {
+            workerPool.submit(this::drain);
+        }
+    }
+    
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (workerPool == null) {
+            return;
+        }
+        accepting = false;
+        workerPool.shutdown();
+        if (!workerPool.awaitTermination(shutdownTimeoutMs, TimeUnit.MILLISECONDS)) {
+            workerPool.shutdownNow();
+        }
+        
+        List<IntakeRequest> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            log.warn("Cancelling {} queued orders not processed before shutdown", remaining.size());
+        }
+        remaining.forEach(request -> complete(request.ticket(), OrderStatus.CANCELLED, null, "Order intake shut down before the order was processed"));
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Queues the order and returns its ticket, or empty when the queue is full or
+     * intake is shutting down.
+     */
+    public Optional<OrderIntakeDto> submit(OrderDto orderDto) {
+        if (!accepting) {
+            return Optional.empty();
+        }
+        String ticketId = UUID.randomUUID().toString();
+        OrderIntakeDto ticket = new OrderIntakeDto(ticketId, OrderStatus.PENDING, null, null);
+        ticket.setSubmittedAt(LocalDateTime.now());
+        tickets.put(ticketId, ticket);
+        
+        IntakeRequest request = new IntakeRequest(ticket, orderDto);
+        // Taken back if shutdown began meanwhile; if stop() drained it first, it cancels the ticket
+        if (!queue.offer(request) || (!accepting && queue.remove(request))) {
+            tickets.remove(ticketId);
+            return Optional.empty();
+        }
+        return Optional.of(ticket);
+    }
+    
+    public Optional<OrderIntakeDto> getTicket(String ticketId) {
+        return Optional.ofNullable(tickets.get(ticketId));
+    }
+    
+    @Scheduled(fixedDelay = 60000)
+    public void purgeCompletedTickets() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(ticketRetentionMinutes);
+        tickets.values().removeIf(ticket -> ticket.getCompletedAt() != null && ticket.getCompletedAt().isBefore(cutoff));
+    }
+    
+    private void drain() {
+        List<IntakeRequest> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            IntakeRequest next;
+            try {
+                // Polled rather than taken so that workers notice shutdown once the queue is empty
+                next = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (next == null) {
+                if (!accepting) {
+                    return;
+                }
+                continue;
+            }
+            batch.add(next);
+            queue.drainTo(batch, batchSize - 1);
+            try {
+                process(batch);
+            } catch (RuntimeException e) {
+                // Keep the worker alive for the next batch
+                log.error("Failed to process {} queued orders", batch.size(), e);
+                batch.forEach(request -> tickets.computeIfPresent(request.ticket().getTicketId(), (id, ticket) ->
+                        ticket.getCompletedAt() != null ? ticket : completed(ticket, OrderStatus.CANCELLED, null, "Failed to process order")));
+            }
+            batch.clear();
+        }
+    }
+    
+    private void process(List<IntakeRequest> batch) {
+        List<IntakeRequest> prepared = new ArrayList<>();
+        List<Order> orders = new ArrayList<>();
+        for (IntakeRequest request : batch) {
+            try {
+                orders.add(orderService.prepareOrder(request.order()));
+                prepared.add(request);
+            } catch (RuntimeException e) {
+                complete(request.ticket(), OrderStatus.CANCELLED, null, e.getMessage());
+            }
+        }
+        if (orders.isEmpty()) {
+            return;
+        }
+        
+        try {
+            List<Order> savedOrders = orderService.saveOrders(orders);
+            for (int i = 0; i < prepared.size(); i++) {
+                Order saved = savedOrders.get(i);
+                complete(prepared.get(i).ticket(), saved.getStatus(), saved.getId(), null);
+            }
+        } catch (RuntimeException e) {
+            for (int i = 0; i < prepared.size(); i++) {
+                try {
+                    orderService.releaseStock(orders.get(i));
+                } catch (RuntimeException releaseFailure) {
+                    // Keep going so that the stock of every other order in the batch is released
+                    log.error("Failed to release stock of an order that could not be saved", releaseFailure);
+                }
+                complete(prepared.get(i).ticket(), OrderStatus.CANCELLED, null, "Failed to persist order");
+            }
+        }
+    }
+    
+    private void complete(OrderIntakeDto ticket, OrderStatus status, Long orderId, String message) {
+        tickets.put(ticket.getTicketId(), completed(ticket, status, orderId, message));
+    }
+    
+    private OrderIntakeDto completed(OrderIntakeDto ticket, OrderStatus status, Long orderId, String message) {
+        // Tickets are replaced rather than mutated so readers always see a consistent one
+        OrderIntakeDto completed = new OrderIntakeDto(ticket.getTicketId(), status, orderId, message);
+        completed.setSubmittedAt(ticket.getSubmittedAt());
+        completed.setCompletedAt(LocalDateTime.now());
+        return completed;
+    }
+    
+    private record IntakeRequest(OrderIntakeDto ticket, OrderDto order) {
+    }
+}
\ No newline at end of file
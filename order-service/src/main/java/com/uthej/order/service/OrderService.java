@@ -1,84 +1,145 @@
 package com.uthej.order.service;
 
+import com.uthej.order.client.ProductCache;
 import com.uthej.order.client.ProductClient;
 import com.uthej.order.client.ProductResponse;
+import com.uthej.order.client.ProductServiceUnavailableException;
+import com.uthej.order.client.StockReservationRequest;
+import com.uthej.order.client.StockReservationResult;
 import com.uthej.order.dto.OrderDto;
 import com.uthej.order.dto.OrderItemDto;
+import com.uthej.order.dto.OrderSummaryDto;
 import com.uthej.order.model.Order;
 import com.uthej.order.model.OrderItem;
 import com.uthej.order.model.OrderStatus;
 import com.uthej.order.repository.OrderRepository;
+import feign.FeignException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class OrderService {
     
+    private static final Logger log = LoggerFactory.getLogger(OrderService.class);
+    
     @Autowired
     private OrderRepository orderRepository;
     
     @Autowired
     private ProductClient productClient;
     
-    public List<OrderDto> getAllOrders() {
-        return orderRepository.findAll().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    @Autowired
+    private ProductCache productCache;
+    
+    @Autowired
+    private ExecutorService productLookupExecutor;
+    
+    @Value("${order.validation.timeout-ms:2000}")
+    private long validationTimeoutMs;
+    
+    @Value("${order.pagination.default-limit:50}")
+    private int defaultPageLimit;
+    
+    @Value("${order.pagination.max-limit:500}")
+    private int maxPageLimit;
+    
+    public Slice<OrderSummaryDto> getAllOrders(Long after, Integer limit) {
+        return orderRepository.findSummariesAfter(cursor(after), page(limit));
+    }
+    
+    /**
+     * Hands every order summary after the cursor to {@code consumer} in id order
+     * without materializing the result; summaries are projections, so nothing
+     * accumulates in the persistence context.
+     */
+    @Transactional(readOnly = true)
+    public void forEachOrder(Long after, Consumer<OrderSummaryDto> consumer) {
+        try (Stream<OrderSummaryDto> orders = orderRepository.streamSummariesAfter(cursor(after))) {
+            orders.forEach(consumer);
+        }
     }
     
     public Optional<OrderDto> getOrderById(Long id) {
-        return orderRepository.findById(id)
+        return orderRepository.findWithItemsById(id)
                 .map(this::convertToDto);
     }
     
-    public List<OrderDto> getOrdersByUserId(Long userId) {
-        return orderRepository.findByUserId(userId).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    public Slice<OrderSummaryDto> getOrdersByUserId(Long userId, Long after, Integer limit) {
+        return orderRepository.findSummariesByUserIdAfter(userId, cursor(after), page(limit));
     }
     
-    public List<OrderDto> getOrdersByStatus(OrderStatus status) {
-        return orderRepository.findByStatus(status).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    public Slice<OrderSummaryDto> getOrdersByStatus(OrderStatus status, Long after, Integer limit) {
+        return orderRepository.findSummariesByStatusAfter(status, cursor(after), page(limit));
     }
     
-    public List<OrderDto> getOrdersByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
-        return orderRepository.findByOrderDateBetween(startDate, endDate).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    public Slice<OrderSummaryDto> getOrdersByDateRange(LocalDateTime startDate, LocalDateTime endDate, Long after, Integer limit) {
+        return orderRepository.findSummariesByOrderDateBetweenAfter(startDate, endDate, cursor(after), page(limit));
     }
     
     public OrderDto createOrder(OrderDto orderDto) {
-        // Validate products and update stock
+        Order order = prepareOrder(orderDto);
+        try {
+            Order savedOrder = orderRepository.save(order);
+            return convertToDto(savedOrder);
+        } catch (RuntimeException e) {
+            releaseStock(order);
+            throw e;
+        }
+    }
+    
+    /**
+     * Validates the order against product-service, reserves its stock and returns
+     * the unsaved entity, PENDING like every new order however it was submitted.
+     * Callers that fail to persist it must call {@link #releaseStock(Order)}.
+     */
+    public Order prepareOrder(OrderDto orderDto) {
+        List<Long> productIds = orderDto.getOrderItems().stream()
+                .map(OrderItemDto::getProductId)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, ProductResponse> products = fetchProducts(productIds);
+        
+        // Validate all items before reserving any stock
         for (OrderItemDto item : orderDto.getOrderItems()) {
-            ProductResponse product = productClient.getProductById(item.getProductId());
+            ProductResponse product = products.get(item.getProductId());
             if (product == null || !product.isActive()) {
                 throw new RuntimeException("Product not found or inactive: " + item.getProductId());
             }
             
-            if (product.getStockQuantity() < item.getQuantity()) {
-                throw new RuntimeException("Insufficient stock for product: " + product.getName());
-            }
-            
-            // Update stock
-            Boolean stockUpdated = productClient.updateStock(item.getProductId(), item.getQuantity());
-            if (!stockUpdated) {
-                throw new RuntimeException("Failed to update stock for product: " + item.getProductId());
-            }
-            
             // Set product details
             item.setProductName(product.getName());
             item.setUnitPrice(product.getPrice());
             item.setTotalPrice(product.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
         }
         
+        reserveStock(orderDto.getOrderItems());
+        
         // Calculate total amount
         BigDecimal totalAmount = orderDto.getOrderItems().stream()
                 .map(OrderItemDto::getTotalPrice)
@@ -87,13 +148,146 @@ public class OrderService {
         orderDto.setTotalAmount(totalAmount);
         orderDto.setStatus(OrderStatus.PENDING);
         
-        Order order = convertToEntity(orderDto);
-        Order savedOrder = orderRepository.save(order);
-        return convertToDto(savedOrder);
+        return convertToEntity(orderDto);
+    }
+    
+    private void reserveStock(List<OrderItemDto> items) {
+        // Reserve stock for every line in one all-or-nothing call; product-service checks
+        // the live stock, so cached product data can never cause an oversell
+        List<StockReservationRequest> reservations = items.stream()
+                .map(item -> new StockReservationRequest(item.getProductId(), item.getQuantity()))
+                .collect(Collectors.toList());
+        List<StockReservationResult> results;
+        try {
+            results = productClient.reserveStock(reservations);
+        } catch (FeignException e) {
+            if (e.status() != 404 && e.status() != 405) {
+                throw e;
+            }
+            reserveStockPerItem(items);
+            return;
+        }
+        if (results.stream().anyMatch(result -> !result.isReserved())) {
+            // Lines carrying a message caused the failure; their cached data is likely stale
+            List<StockReservationResult> failed = results.stream()
+                    .filter(result -> result.getMessage() != null)
+                    .collect(Collectors.toList());
+            failed.forEach(result -> productCache.invalidate(result.getProductId()));
+            throw new RuntimeException(failed.isEmpty()
+                    ? "Failed to reserve stock"
+                    : failed.get(0).getMessage() + " for product: " + failed.get(0).getProductId());
+        }
+    }
+    
+    /**
+     * Reservation against a product-service without the bulk endpoint: lines are
+     * decremented one at a time, and the lines already taken are given back if a
+     * later one fails.
+     */
+    private void reserveStockPerItem(List<OrderItemDto> items) {
+        List<OrderItemDto> reserved = new ArrayList<>();
+        for (OrderItemDto item : items) {
+            boolean updated;
+            try {
+                updated = Boolean.TRUE.equals(productClient.updateStock(item.getProductId(), item.getQuantity()));
+            } catch (RuntimeException e) {
+                giveBack(reserved);
+                throw e;
+            }
+            if (!updated) {
+                giveBack(reserved);
+                productCache.invalidate(item.getProductId());
+                throw new RuntimeException("Insufficient stock for product: " + item.getProductId());
+            }
+            reserved.add(item);
+        }
+    }
+    
+    private void giveBack(List<OrderItemDto> reserved) {
+        for (OrderItemDto item : reserved) {
+            try {
+                productClient.updateStock(item.getProductId(), -item.getQuantity());
+            } catch (RuntimeException e) {
+                log.warn("Could not give back {} units of product {}", item.getQuantity(), item.getProductId(), e);
+            }
+        }
+    }
+    
+    public List<Order> saveOrders(List<Order> orders) {
+        return orderRepository.saveAll(orders);
+    }
+    
+    public void releaseStock(Order order) {
+        for (OrderItem item : order.getOrderItems()) {
+            productClient.updateStock(item.getProductId(), -item.getQuantity());
+        }
+    }
+    
+    private Map<Long, ProductResponse> fetchProducts(List<Long> productIds) {
+        return productCache.getAll(productIds, this::loadProducts);
+    }
+    
+    private Map<Long, ProductResponse> loadProducts(List<Long> productIds) {
+        // Fetch every product on the order in a single round trip when product-service supports it
+        try {
+            return productClient.getProductsByIds(productIds).stream()
+                    .collect(Collectors.toMap(ProductResponse::getId, Function.identity()));
+        } catch (FeignException e) {
+            if (e.status() != 400 && e.status() != 404 && e.status() != 405) {
+                throw e;
+            }
+        }
+        return fetchProductsInParallel(productIds);
+    }
+    
+    private Map<Long, ProductResponse> fetchProductsInParallel(List<Long> productIds) {
+        // Issue all lookups at once so the order waits for the slowest item, not the sum of them
+        Map<Long, Future<ProductResponse>> lookups = new LinkedHashMap<>();
+        try {
+            for (Long productId : productIds) {
+                lookups.put(productId, productLookupExecutor.submit(() -> productClient.getProductById(productId)));
+            }
+        } catch (RejectedExecutionException e) {
+            lookups.values().forEach(future -> future.cancel(true));
+            throw new ProductServiceUnavailableException("Product lookup queue is full", 0);
+        }
+        
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(validationTimeoutMs);
+        Map<Long, ProductResponse> products = new HashMap<>();
+        List<Long> failed = new ArrayList<>();
+        for (Map.Entry<Long, Future<ProductResponse>> lookup : lookups.entrySet()) {
+            try {
+                ProductResponse product = lookup.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (product != null) {
+                    products.put(lookup.getKey(), product);
+                }
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof ProductServiceUnavailableException unavailable) {
+                    lookups.values().forEach(future -> future.cancel(true));
+                    throw unavailable;
+                }
+                // A missing product is reported by validation; anything else fails the lookup
+                if (!(e.getCause() instanceof FeignException.NotFound)) {
+                    failed.add(lookup.getKey());
+                }
+            } catch (TimeoutException e) {
+                lookup.getValue().cancel(true);
+                failed.add(lookup.getKey());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                lookups.values().forEach(future -> future.cancel(true));
+                throw new RuntimeException("Interrupted while looking up products");
+            }
+        }
+        
+        if (!failed.isEmpty()) {
+            throw new RuntimeException("Product lookup failed for: " + failed);
+        }
+        return products;
     }
     
     public OrderDto updateOrderStatus(Long id, OrderStatus status) {
-        Optional<Order> existingOrder = orderRepository.findById(id);
+        Optional<Order> existingOrder = orderRepository.findWithItemsById(id);
         if (existingOrder.isEmpty()) {
             throw new RuntimeException("Order not found");
         }
@@ -105,22 +299,43 @@ public class OrderService {
         return convertToDto(savedOrder);
     }
     
+    /**
+     * Cancels a pending or confirmed order and gives back its stock. Each item is
+     * marked once its stock is back, so when product-service fails part way the
+     * cancel can be retried and only releases the items still outstanding.
+     */
     public void cancelOrder(Long id) {
-        Optional<Order> order = orderRepository.findById(id);
+        Optional<Order> order = orderRepository.findWithItemsById(id);
         if (order.isPresent()) {
             Order o = order.get();
             if (o.getStatus() == OrderStatus.PENDING || o.getStatus() == OrderStatus.CONFIRMED) {
                 o.setStatus(OrderStatus.CANCELLED);
                 orderRepository.save(o);
-                
-                // Restore stock
-                for (OrderItem item : o.getOrderItems()) {
+            } else if (o.getStatus() != OrderStatus.CANCELLED) {
+                return;
+            }
+            
+            // Restore stock
+            for (OrderItem item : o.getOrderItems()) {
+                if (!item.isStockReleased()) {
                     productClient.updateStock(item.getProductId(), -item.getQuantity());
+                    orderRepository.markStockReleased(item.getId());
+                    item.setStockReleased(true);
                 }
             }
         }
     }
     
+    private Long cursor(Long after) {
+        return after != null ? after : 0L;
+    }
+    
+    private Pageable page(Integer limit) {
+        // Never let a client ask for an unbounded page
+        int size = limit != null ? limit : defaultPageLimit;
+        return PageRequest.of(0, Math.max(1, Math.min(size, maxPageLimit)));
+    }
+    
     private OrderDto convertToDto(Order order) {
         OrderDto dto = new OrderDto();
         dto.setId(order.getId());
@@ -0,0 +1,244 @@
+package com.uthej.order.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import feign.FeignException;
+import feign.RetryableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Runs the real Feign client against a local product-service stub whose latency
+ * and status are set per test, with a 300 ms read timeout, a breaker that opens
+ * after 4 calls and probes with 2 after 500 ms, and 2 bulkhead slots.
+ */
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "spring.jpa.show-sql=false",
+        "spring.cloud.openfeign.client.config.product-service.read-timeout=300",
+        "product-client.circuit-breaker.window-size=4",
+        "product-client.circuit-breaker.minimum-calls=4",
+        "product-client.circuit-breaker.failure-rate-threshold=50",
+        "product-client.circuit-breaker.open-duration-ms=500",
+        "product-client.circuit-breaker.half-open-calls=2",
+        "product-client.bulkhead.max-concurrent-calls=2",
+        "product-client.bulkhead.max-wait-ms=0"
+})
+class ProductClientGuardTest {
+    
+    private static final StubProductService stub = new StubProductService();
+    
+    @Autowired
+    private ProductClient productClient;
+    
+    @Autowired
+    private ProductClientGuard guard;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @DynamicPropertySource
+    static void productService(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.discovery.client.simple.instances.product-service[0].uri", stub::uri);
+    }
+    
+    @AfterAll
+    static void stopStub() {
+        stub.stop();
+    }
+    
+    @BeforeEach
+    void closeCircuit() throws InterruptedException {
+        stub.reset();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (guard.getCircuitState() != CircuitBreaker.State.CLOSED) {
+            if (System.nanoTime() > deadline) {
+                fail("Circuit did not close against a healthy product-service");
+            }
+            try {
+                productClient.getProductsByIds(List.of(1L));
+            } catch (ProductServiceUnavailableException e) {
+                Thread.sleep(50);
+            }
+        }
+        stub.reset();
+    }
+    
+    @Test
+    void slowResponseFailsAtTheReadTimeout() {
+        stub.delayMillis = 1000;
+        
+        long start = System.nanoTime();
+        RetryableException e = assertThrows(RetryableException.class, () -> productClient.getProductsByIds(List.of(1L)));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        
+        assertInstanceOf(SocketTimeoutException.class, e.getCause());
+        assertTrue(elapsedMillis < 900, "Call took " + elapsedMillis + " ms");
+    }
+    
+    @Test
+    void failuresOpenTheCircuitWhichFailsFastUntilProbesSucceed() throws InterruptedException {
+        stub.status = 500;
+        for (int i = 0; i < 4 && guard.getCircuitState() == CircuitBreaker.State.CLOSED; i++) {
+            assertThrows(FeignException.InternalServerError.class, () -> productClient.getProductsByIds(List.of(1L)));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, guard.getCircuitState());
+        
+        // Rejected without reaching product-service
+        int calls = stub.calls.get();
+        ProductServiceUnavailableException rejected = assertThrows(ProductServiceUnavailableException.class,
+                () -> productClient.getProductsByIds(List.of(1L)));
+        assertTrue(rejected.getRetryAfterMillis() > 0);
+        assertEquals(calls, stub.calls.get());
+        
+        stub.status = 200;
+        Thread.sleep(600);
+        productClient.getProductsByIds(List.of(1L));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, guard.getCircuitState());
+        productClient.getProductsByIds(List.of(1L));
+        assertEquals(CircuitBreaker.State.CLOSED, guard.getCircuitState());
+        assertEquals(calls + 2, stub.calls.get());
+    }
+    
+    @Test
+    void callsBeyondTheBulkheadAreRejectedAtOnce() throws Exception {
+        stub.delayMillis = 200;
+        double rejectedBefore = bulkheadRejections();
+        
+        int callers = 6;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return productClient.getProductsByIds(List.of(1L));
+                }));
+            }
+            start.countDown();
+            
+            int succeeded = 0;
+            int rejected = 0;
+            for (Future<?> result : results) {
+                try {
+                    result.get(5, TimeUnit.SECONDS);
+                    succeeded++;
+                } catch (ExecutionException e) {
+                    assertInstanceOf(ProductServiceUnavailableException.class, e.getCause());
+                    rejected++;
+                }
+            }
+            
+            assertTrue(stub.maxInFlight.get() <= 2, "Stub saw " + stub.maxInFlight.get() + " concurrent calls");
+            assertEquals(succeeded, stub.calls.get());
+            assertTrue(rejected > 0);
+            assertEquals(rejectedBefore + rejected, bulkheadRejections());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private double bulkheadRejections() {
+        return meterRegistry.counter("product.client.rejected", "reason", "bulkhead_full").count();
+    }
+    
+    /**
+     * Answers every product lookup with one product after {@code delayMillis}, or
+     * with {@code status} and no body when that is not 200.
+     */
+    private static final class StubProductService {
+        
+        private final HttpServer server;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile long delayMillis;
+        private volatile int status;
+        
+        StubProductService() {
+            try {
+                server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            server.createContext("/products", this::handle);
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.start();
+            reset();
+        }
+        
+        String uri() {
+            return "http://localhost:" + server.getAddress().getPort();
+        }
+        
+        // Fast 200s with fresh counts, once calls abandoned by an earlier test have finished
+        void reset() {
+            delayMillis = 0;
+            status = 200;
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            maxInFlight.set(0);
+            calls.set(0);
+        }
+        
+        void stop() {
+            server.stop(0);
+        }
+        
+        private void handle(HttpExchange exchange) throws IOException {
+            calls.incrementAndGet();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(delayMillis);
+                if (status != 200) {
+                    exchange.sendResponseHeaders(status, -1);
+                    return;
+                }
+                byte[] body = """
+                        [{"id": 1, "name": "Stub", "price": 10.00, "stockQuantity": 100, "active": true}]
+                        """.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+                exchange.close();
+            }
+        }
+    }
+}
\ No newline at end of file
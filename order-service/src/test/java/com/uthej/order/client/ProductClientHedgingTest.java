@@ -0,0 +1,223 @@
+package com.uthej.order.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the real Feign client against two product-service instances whose latency
+ * is set per test, with hedging after 100 ms and a budget of one hedge per two reads.
+ */
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "spring.jpa.show-sql=false",
+        "spring.cloud.openfeign.client.config.product-service.read-timeout=3000",
+        "product-client.hedging.enabled=true",
+        "product-client.hedging.delay-percentile=50",
+        "product-client.hedging.min-delay-ms=100",
+        "product-client.hedging.max-extra-load-percent=50"
+})
+class ProductClientHedgingTest {
+    
+    private static final StubProductService stub = new StubProductService();
+    
+    @Autowired
+    private ProductClient productClient;
+    
+    @Autowired
+    private ProductClientHedging hedging;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @DynamicPropertySource
+    static void productService(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.discovery.client.simple.instances.product-service[0].uri", () -> stub.uri(0));
+        registry.add("spring.cloud.discovery.client.simple.instances.product-service[1].uri", () -> stub.uri(1));
+    }
+    
+    @AfterAll
+    static void stopStub() {
+        stub.stop();
+    }
+    
+    @BeforeEach
+    void emptyBudget() {
+        stub.reset();
+        ProductClientHedging.HedgeBudget budget =
+                (ProductClientHedging.HedgeBudget) ReflectionTestUtils.getField(hedging, "budget");
+        while (budget.tryWithdraw()) {
+            // Each test starts without hedges to spend
+        }
+    }
+    
+    @Test
+    void slowReadIsAnsweredByTheHedgeAndTheLoserIsCutOff() throws InterruptedException {
+        double sent = hedges("sent");
+        double won = hedges("won");
+        // Pays for the hedge below
+        productClient.getProductsByIds(List.of(1L));
+        stub.reset();
+        
+        stub.firstDelayMillis = 1000;
+        long start = System.nanoTime();
+        productClient.getProductsByIds(List.of(1L));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        
+        assertTrue(elapsedMillis < 800, "Call took " + elapsedMillis + " ms");
+        assertEquals(2, stub.calls.get());
+        assertEquals(sent + 1, hedges("sent"));
+        assertEquals(won + 1, hedges("won"));
+        // The slow answer is closed as soon as it arrives instead of being read
+        assertTrue(stub.abandoned.await(5, TimeUnit.SECONDS), "Losing response was read to the end");
+    }
+    
+    @Test
+    void onlySlowReadsAreHedged() {
+        double sent = hedges("sent");
+        
+        productClient.getProductsByIds(List.of(1L));
+        productClient.getProductsByIds(List.of(1L));
+        assertEquals(2, stub.calls.get());
+        assertEquals(sent, hedges("sent"));
+        
+        // The budget now holds a hedge, but a reservation is never sent twice
+        stub.reset();
+        stub.firstDelayMillis = 300;
+        productClient.reserveStock(List.of(new StockReservationRequest(1L, 1)));
+        assertEquals(1, stub.calls.get());
+        assertEquals(sent, hedges("sent"));
+        
+        stub.reset();
+        stub.firstDelayMillis = 300;
+        productClient.getProductsByIds(List.of(1L));
+        assertEquals(2, stub.calls.get());
+        assertEquals(sent + 1, hedges("sent"));
+    }
+    
+    @Test
+    void budgetCapsHedgesAtItsShareOfReads() {
+        double sent = hedges("sent");
+        double skipped = meterRegistry.counter("product.client.hedges.skipped", "reason", "budget").count();
+        stub.delayMillis = 250;
+        
+        int reads = 8;
+        for (int i = 0; i < reads; i++) {
+            productClient.getProductsByIds(List.of(1L));
+        }
+        
+        // Every read is slow enough to hedge, but each one only pays for half a hedge
+        assertEquals(sent + reads / 2, hedges("sent"));
+        assertEquals(skipped + reads / 2,
+                meterRegistry.counter("product.client.hedges.skipped", "reason", "budget").count());
+        assertEquals(reads + reads / 2, stub.calls.get());
+    }
+    
+    private double hedges(String outcome) {
+        return meterRegistry.counter("product.client.hedges." + outcome).count();
+    }
+    
+    /**
+     * Two product-service instances answering every lookup with one product after
+     * {@code delayMillis}. The first request after a reset, on whichever instance,
+     * waits {@code firstDelayMillis} instead and pads its answer to far more than
+     * the socket buffers hold, so a client that closes it early cuts the write off.
+     */
+    private static final class StubProductService {
+        
+        private static final int PADDING = 32 * 1024 * 1024;
+        
+        private final HttpServer[] servers = new HttpServer[2];
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile long delayMillis;
+        private volatile long firstDelayMillis;
+        private volatile CountDownLatch abandoned;
+        
+        StubProductService() {
+            for (int i = 0; i < servers.length; i++) {
+                try {
+                    servers[i] = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                servers[i].createContext("/products", this::handle);
+                servers[i].setExecutor(Executors.newCachedThreadPool());
+                servers[i].start();
+            }
+            reset();
+        }
+        
+        String uri(int instance) {
+            return "http://localhost:" + servers[instance].getAddress().getPort();
+        }
+        
+        // Fast answers with fresh counts, once calls still running from an earlier test have finished
+        void reset() {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            delayMillis = 0;
+            firstDelayMillis = 0;
+            abandoned = new CountDownLatch(1);
+            calls.set(0);
+        }
+        
+        void stop() {
+            for (HttpServer server : servers) {
+                server.stop(0);
+            }
+        }
+        
+        private void handle(HttpExchange exchange) throws IOException {
+            boolean first = calls.incrementAndGet() == 1 && firstDelayMillis > 0;
+            inFlight.incrementAndGet();
+            try {
+                Thread.sleep(first ? firstDelayMillis : delayMillis);
+                byte[] body = """
+                        [{"id": 1, "name": "Stub", "price": 10.00, "stockQuantity": 100, "active": true}]
+                        """.getBytes(StandardCharsets.UTF_8);
+                int padding = first ? PADDING : 0;
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length + padding);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                    byte[] spaces = " ".repeat(64 * 1024).getBytes(StandardCharsets.UTF_8);
+                    for (int written = 0; written < padding; written += spaces.length) {
+                        out.write(spaces);
+                    }
+                } catch (IOException e) {
+                    abandoned.countDown();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+                exchange.close();
+            }
+        }
+    }
+}
\ No newline at end of file
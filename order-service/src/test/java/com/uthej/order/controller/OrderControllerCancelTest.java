@@ -0,0 +1,78 @@
+package com.uthej.order.controller;
+
+import com.uthej.order.client.ProductClient;
+import com.uthej.order.client.ProductServiceUnavailableException;
+import com.uthej.order.model.Order;
+import com.uthej.order.model.OrderItem;
+import com.uthej.order.model.OrderStatus;
+import com.uthej.order.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureMockMvc
+class OrderControllerCancelTest {
+    
+    @MockBean
+    private ProductClient productClient;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Test
+    void retriedCancelGivesBackOnlyTheStockStillOutstanding() throws Exception {
+        Order order = new Order(1L, new BigDecimal("50.00"), "1 Main St", "CARD");
+        order.setStatus(OrderStatus.CONFIRMED);
+        OrderItem first = new OrderItem(1L, "First", 2, new BigDecimal("10.00"));
+        OrderItem second = new OrderItem(2L, "Second", 3, new BigDecimal("10.00"));
+        first.setOrder(order);
+        second.setOrder(order);
+        order.setOrderItems(List.of(first, second));
+        Long id = orderRepository.save(order).getId();
+        
+        when(productClient.updateStock(1L, -2)).thenReturn(true);
+        when(productClient.updateStock(2L, -3))
+                .thenThrow(new ProductServiceUnavailableException("Product service circuit is open", 2000))
+                .thenReturn(true);
+        
+        mockMvc.perform(put("/orders/{id}/cancel", id))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"));
+        assertEquals(OrderStatus.CANCELLED, orderRepository.findById(id).orElseThrow().getStatus());
+        
+        mockMvc.perform(put("/orders/{id}/cancel", id))
+                .andExpect(status().isOk());
+        // A further retry has nothing left to give back
+        mockMvc.perform(put("/orders/{id}/cancel", id))
+                .andExpect(status().isOk());
+        
+        verify(productClient, times(1)).updateStock(1L, -2);
+        verify(productClient, times(2)).updateStock(2L, -3);
+        assertTrue(orderRepository.findWithItemsById(id).orElseThrow().getOrderItems().stream()
+                .allMatch(OrderItem::isStockReleased));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,89 @@
+package com.uthej.order.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uthej.order.model.Order;
+import com.uthej.order.model.OrderStatus;
+import com.uthej.order.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureMockMvc
+class OrderControllerExportTest {
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Test
+    void exportWritesOneOrderSummaryPerLineInIdOrder() throws Exception {
+        long before = orderRepository.findAll().stream().mapToLong(Order::getId).max().orElse(0L);
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            Order order = new Order(100L + i % 3, new BigDecimal(i + 1 + ".50"), "1 Main St", "CARD");
+            order.setStatus(OrderStatus.values()[i % OrderStatus.values().length]);
+            orders.add(order);
+        }
+        orders = orderRepository.saveAll(orders);
+        
+        List<String> lines = export(before);
+        assertEquals(orders.size(), lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            Order order = orders.get(i);
+            JsonNode line = objectMapper.readTree(lines.get(i));
+            assertEquals(order.getId(), line.get("id").asLong());
+            assertEquals(order.getUserId(), line.get("userId").asLong());
+            assertEquals(order.getStatus().name(), line.get("status").asText());
+            assertEquals(0, order.getTotalAmount().compareTo(line.get("totalAmount").decimalValue()));
+            assertTrue(line.hasNonNull("orderDate"));
+            // The summary shape, without items
+            assertEquals(5, line.size());
+        }
+        
+        // An interrupted sync resumes after the last id it saw
+        List<String> rest = export(orders.get(9).getId());
+        assertEquals(lines.subList(10, lines.size()), rest);
+    }
+    
+    private List<String> export(long after) throws Exception {
+        MvcResult started = mockMvc.perform(get("/orders").param("after", Long.toString(after))
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        // Every document, the last included, ends its line
+        assertTrue(body.isEmpty() || body.endsWith("\n"));
+        return body.isEmpty() ? List.of() : List.of(body.split("\n"));
+    }
+}
\ No newline at end of file
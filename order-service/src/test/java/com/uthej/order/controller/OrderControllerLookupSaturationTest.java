@@ -0,0 +1,67 @@
+package com.uthej.order.controller;
+
+import com.uthej.order.client.ProductClient;
+import feign.FeignException;
+import feign.Request;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "spring.jpa.show-sql=false",
+        "order.validation.parallelism=1",
+        "order.validation.queue-capacity=1"
+})
+@AutoConfigureMockMvc
+class OrderControllerLookupSaturationTest {
+    
+    @MockBean
+    private ProductClient productClient;
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Test
+    void saturatedLookupPoolAnswers503WithRetryAfter() throws Exception {
+        Request batch = Request.create(Request.HttpMethod.GET, "/products/batch", Map.of(), null, StandardCharsets.UTF_8, null);
+        when(productClient.getProductsByIds(anyList())).thenThrow(new FeignException.NotFound("Not Found", batch, null, null));
+        when(productClient.getProductById(anyLong())).thenAnswer(invocation -> {
+            Thread.sleep(5000);
+            return null;
+        });
+        
+        // One lookup runs and one waits; the third cannot be queued
+        mockMvc.perform(post("/orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"userId": 1, "totalAmount": 1, "orderItems": [
+                                  {"productId": 1, "quantity": 1},
+                                  {"productId": 2, "quantity": 1},
+                                  {"productId": 3, "quantity": 1}
+                                ]}
+                                """))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+        
+        verify(productClient, never()).reserveStock(anyList());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,119 @@
+package com.uthej.order.repository;
+
+import com.uthej.order.dto.OrderDto;
+import com.uthej.order.dto.OrderSummaryDto;
+import com.uthej.order.model.Order;
+import com.uthej.order.model.OrderItem;
+import com.uthej.order.model.OrderStatus;
+import com.uthej.order.service.OrderService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Slice;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "order.pagination.max-limit=1000"
+})
+class OrderListStatementCountTest {
+    
+    private static final int ORDERS = 1000;
+    private static final int ITEMS_PER_ORDER = 3;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    private Statistics statistics;
+    private long userId;
+    private Long before;
+    
+    @BeforeEach
+    void saveOrders() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        userId = System.nanoTime();
+        before = orderRepository.findAll().stream().mapToLong(Order::getId).max().orElse(0L);
+        
+        List<Order> orders = new ArrayList<>(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = new Order(userId, new BigDecimal("30.00"), "1 Test Street", "CARD");
+            order.setStatus(OrderStatus.CONFIRMED);
+            List<OrderItem> items = new ArrayList<>();
+            for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+                OrderItem item = new OrderItem((long) j + 1, "Product " + j, 1, new BigDecimal("10.00"));
+                item.setOrder(order);
+                items.add(item);
+            }
+            order.setOrderItems(items);
+            orders.add(order);
+        }
+        orderRepository.saveAll(orders);
+    }
+    
+    @Test
+    void listingOrdersTakesOneStatementRegardlessOfItems() {
+        assertOneStatement(() -> orderService.getAllOrders(before, ORDERS));
+        assertOneStatement(() -> orderService.getOrdersByUserId(userId, null, ORDERS));
+        assertOneStatement(() -> orderService.getOrdersByStatus(OrderStatus.CONFIRMED, before, ORDERS));
+        assertOneStatement(() -> orderService.getOrdersByDateRange(
+                LocalDateTime.now().minusHours(1), LocalDateTime.now().plusHours(1), before, ORDERS));
+    }
+    
+    @Test
+    void orderQueriesLeaveItemsUnloaded() {
+        statistics.clear();
+        List<Order> orders = orderRepository.findByUserIdAndStatus(userId, OrderStatus.CONFIRMED);
+        
+        assertThat(orders).hasSize(ORDERS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+    
+    @Test
+    void exportingOrdersTakesOneStatement() {
+        statistics.clear();
+        List<OrderSummaryDto> exported = new ArrayList<>();
+        orderService.forEachOrder(before, exported::add);
+        
+        assertThat(exported).hasSize(ORDERS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+    
+    @Test
+    void singleOrderLoadsItsItemsInTheSameStatement() {
+        Long id = orderService.getOrdersByUserId(userId, null, 1).getContent().get(0).getId();
+        
+        statistics.clear();
+        OrderDto order = orderService.getOrderById(id).orElseThrow();
+        
+        assertThat(order.getOrderItems()).hasSize(ITEMS_PER_ORDER);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+    
+    private void assertOneStatement(Supplier<Slice<OrderSummaryDto>> listing) {
+        statistics.clear();
+        Slice<OrderSummaryDto> orders = listing.get();
+        
+        assertThat(orders.getContent()).hasSize(ORDERS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
\ No newline at end of file
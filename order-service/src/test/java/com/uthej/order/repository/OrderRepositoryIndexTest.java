@@ -0,0 +1,69 @@
+package com.uthej.order.repository;
+
+import com.uthej.order.model.OrderStatus;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Each order lookup, including the keyset pages, is planned by H2 against the
+ * index declared on {@code orders}.
+ */
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.uthej.order.repository.OrderRepositoryIndexTest$CapturedSql"
+})
+class OrderRepositoryIndexTest {
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Test
+    void lookupsUseTheirIndexes() {
+        PageRequest page = PageRequest.of(0, 50);
+        LocalDateTime now = LocalDateTime.now();
+        assertThat(plan(() -> orderRepository.findByUserIdAndStatus(1L, OrderStatus.PENDING)))
+                .containsIgnoringCase("idx_orders_user_id_status");
+        assertThat(plan(() -> orderRepository.findByUserId(1L))).containsIgnoringCase("idx_orders_user_id_");
+        assertThat(plan(() -> orderRepository.findSummariesByUserIdAfter(1L, 0L, page))).containsIgnoringCase("idx_orders_user_id_id");
+        assertThat(plan(() -> orderRepository.findByStatus(OrderStatus.PENDING))).containsIgnoringCase("idx_orders_status_id");
+        assertThat(plan(() -> orderRepository.findSummariesByStatusAfter(OrderStatus.PENDING, 0L, page)))
+                .containsIgnoringCase("idx_orders_status_id");
+        assertThat(plan(() -> orderRepository.findByOrderDateBetween(now.minusDays(1), now))).containsIgnoringCase("idx_orders_order_date");
+        // Items are joined through the index H2 keeps for the order_id foreign key
+        assertThat(plan(() -> orderRepository.findWithItemsById(1L))).doesNotContainIgnoringCase("tableScan");
+    }
+    
+    // H2 plans the prepared statement before any parameter is bound, so they are left null
+    private String plan(Runnable query) {
+        CapturedSql.statements.clear();
+        query.run();
+        String sql = CapturedSql.statements.get(0);
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, new Object[(int) sql.chars().filter(c -> c == '?').count()]);
+    }
+    
+    public static class CapturedSql implements StatementInspector {
+        
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+        
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.uthej.order.repository;
+
+import com.uthej.order.model.Order;
+import com.uthej.order.model.OrderItem;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Saving many orders prepares one insert per table, reused for every JDBC batch,
+ * and takes one sequence call per 50 ids, for orders and their items alike.
+ */
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.uthej.order.repository.OrderSaveStatementCountTest$CapturedSql"
+})
+class OrderSaveStatementCountTest {
+    
+    private static final int ORDERS = 1000;
+    private static final int ITEMS_PER_ORDER = 3;
+    private static final int ALLOCATION_SIZE = 50;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Test
+    void saveAllBatchesInsertsAndPoolsIds() {
+        List<Order> orders = new ArrayList<>(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = new Order(1L, new BigDecimal("30.00"), "1 Test Street", "CARD");
+            List<OrderItem> items = new ArrayList<>();
+            for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+                OrderItem item = new OrderItem((long) j + 1, "Product " + j, 1, new BigDecimal("10.00"));
+                item.setOrder(order);
+                items.add(item);
+            }
+            order.setOrderItems(items);
+            orders.add(order);
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        CapturedSql.statements.clear();
+        
+        orderRepository.saveAll(orders);
+        
+        int items = ORDERS * ITEMS_PER_ORDER;
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(ORDERS + items);
+        // Row by row, every insert would be prepared on its own
+        assertThat(count("insert into orders ")).isEqualTo(1);
+        assertThat(count("insert into order_items ")).isEqualTo(1);
+        // The pooled optimizer's first call only fixes where its first block of ids starts
+        assertThat(count("orders_seq")).isEqualTo(ORDERS / ALLOCATION_SIZE + 1);
+        assertThat(count("order_items_seq")).isEqualTo(items / ALLOCATION_SIZE + 1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(CapturedSql.statements.size());
+    }
+    
+    private int count(String sql) {
+        return (int) CapturedSql.statements.stream()
+                .filter(statement -> statement.toLowerCase(Locale.ROOT).contains(sql))
+                .count();
+    }
+    
+    public static class CapturedSql implements StatementInspector {
+        
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+        
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
\ No newline at end of file
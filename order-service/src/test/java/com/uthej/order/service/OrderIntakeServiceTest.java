@@ -0,0 +1,73 @@
+package com.uthej.order.service;
+
+import com.uthej.order.client.ProductCache;
+import com.uthej.order.client.ProductClient;
+import com.uthej.order.dto.OrderDto;
+import com.uthej.order.dto.OrderIntakeDto;
+import com.uthej.order.model.OrderStatus;
+import com.uthej.order.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "spring.jpa.show-sql=false",
+        "order.intake.async-enabled=true"
+})
+class OrderIntakeServiceTest {
+    
+    @MockBean
+    private ProductClient productClient;
+    
+    @Autowired
+    private ProductCache productCache;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private OrderIntakeService orderIntakeService;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @BeforeEach
+    void productService() {
+        productCache.invalidateAll();
+        when(productClient.getProductsByIds(anyList())).thenThrow(OrderServiceProductLookupTest.notFound("/products/batch"));
+        when(productClient.reserveStock(anyList())).thenThrow(OrderServiceProductLookupTest.notFound("/products/stock/reservations"));
+        when(productClient.getProductById(anyLong()))
+                .thenAnswer(invocation -> OrderServiceProductLookupTest.product(invocation.getArgument(0)));
+        when(productClient.updateStock(anyLong(), eq(1))).thenReturn(true);
+    }
+    
+    @Test
+    void queuedOrderIsSavedWithTheStatusOfASynchronousOne() throws InterruptedException {
+        OrderDto created = orderService.createOrder(OrderServiceProductLookupTest.order(2));
+        assertThat(created.getStatus()).isEqualTo(OrderStatus.PENDING);
+        
+        OrderIntakeDto ticket = orderIntakeService.submit(OrderServiceProductLookupTest.order(2)).orElseThrow();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (ticket.getCompletedAt() == null && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            ticket = orderIntakeService.getTicket(ticket.getTicketId()).orElseThrow();
+        }
+        
+        assertThat(ticket.getCompletedAt()).isNotNull();
+        assertThat(ticket.getOrderId()).isNotNull();
+        assertThat(ticket.getStatus()).isEqualTo(created.getStatus());
+        assertThat(orderRepository.findById(ticket.getOrderId()).orElseThrow().getStatus()).isEqualTo(created.getStatus());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,134 @@
+package com.uthej.order.service;
+
+import com.uthej.order.client.ProductCache;
+import com.uthej.order.client.ProductClient;
+import com.uthej.order.client.ProductResponse;
+import com.uthej.order.dto.OrderDto;
+import com.uthej.order.dto.OrderItemDto;
+import feign.FeignException;
+import feign.Request;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "spring.jpa.show-sql=false"
+})
+class OrderServiceProductLookupTest {
+    
+    private static final long LOOKUP_DELAY_MS = 300;
+    private static final int ITEMS = 5;
+    
+    @MockBean
+    private ProductClient productClient;
+    
+    @Autowired
+    private ProductCache productCache;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @BeforeEach
+    void olderProductService() {
+        productCache.invalidateAll();
+        // A product-service without the batch and bulk reservation endpoints, and slow single lookups
+        when(productClient.getProductsByIds(anyList())).thenThrow(notFound("/products/batch"));
+        when(productClient.reserveStock(anyList())).thenThrow(notFound("/products/stock/reservations"));
+        when(productClient.getProductById(anyLong())).thenAnswer(invocation -> {
+            Thread.sleep(LOOKUP_DELAY_MS);
+            return product(invocation.getArgument(0));
+        });
+    }
+    
+    @Test
+    void perItemLookupsTakeAboutAsLongAsTheSlowestItem() {
+        when(productClient.updateStock(anyLong(), eq(1))).thenReturn(true);
+        
+        long start = System.nanoTime();
+        OrderDto order = orderService.createOrder(order(ITEMS));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        
+        assertThat(order.getId()).isNotNull();
+        assertThat(order.getTotalAmount()).isEqualByComparingTo(new BigDecimal("50.00"));
+        // Serial lookups would take ITEMS * LOOKUP_DELAY_MS = 1500 ms
+        assertThat(elapsedMs).isGreaterThanOrEqualTo(LOOKUP_DELAY_MS).isLessThan(2 * LOOKUP_DELAY_MS);
+    }
+    
+    @Test
+    void perItemReservationIsUsedWithoutTheBulkEndpoint() {
+        when(productClient.updateStock(anyLong(), eq(1))).thenReturn(true);
+        
+        orderService.createOrder(order(ITEMS));
+        
+        for (long productId = 1; productId <= ITEMS; productId++) {
+            verify(productClient).updateStock(productId, 1);
+        }
+        verify(productClient, never()).updateStock(anyLong(), eq(-1));
+    }
+    
+    @Test
+    void perItemReservationGivesBackEarlierLinesWhenOneFails() {
+        when(productClient.updateStock(anyLong(), eq(1))).thenReturn(true);
+        when(productClient.updateStock(3L, 1)).thenReturn(false);
+        
+        assertThatThrownBy(() -> orderService.createOrder(order(ITEMS)))
+                .hasMessageContaining("Insufficient stock for product: 3");
+        
+        verify(productClient).updateStock(1L, -1);
+        verify(productClient).updateStock(2L, -1);
+        verify(productClient, never()).updateStock(3L, -1);
+        verify(productClient, never()).updateStock(4L, 1);
+    }
+    
+    static OrderDto order(int items) {
+        List<OrderItemDto> lines = new ArrayList<>();
+        for (long productId = 1; productId <= items; productId++) {
+            OrderItemDto line = new OrderItemDto();
+            line.setProductId(productId);
+            line.setQuantity(1);
+            lines.add(line);
+        }
+        OrderDto order = new OrderDto();
+        order.setUserId(1L);
+        order.setTotalAmount(BigDecimal.ONE);
+        order.setShippingAddress("1 Main Street");
+        order.setBillingAddress("1 Main Street");
+        order.setPaymentMethod("CARD");
+        order.setOrderItems(lines);
+        return order;
+    }
+    
+    static ProductResponse product(Long id) {
+        ProductResponse product = new ProductResponse();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setPrice(new BigDecimal("10.00"));
+        product.setStockQuantity(100);
+        product.setActive(true);
+        return product;
+    }
+    
+    static FeignException notFound(String path) {
+        Request request = Request.create(Request.HttpMethod.GET, path, Map.of(), null, StandardCharsets.UTF_8, null);
+        return new FeignException.NotFound("Not Found", request, null, null);
+    }
+}
\ No newline at end of file
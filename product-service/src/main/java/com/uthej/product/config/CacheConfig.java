@@ -0,0 +1,39 @@
+package com.uthej.product.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+    
+    public static final String PRODUCTS_CACHE = "products";
+    public static final String LISTINGS_CACHE = "product-listings";
+    
+    /**
+     * Single products by id and listing results. The TTL only bounds staleness
+     * from writes made by other instances; local writes invalidate entries directly.
+     */
+    @Bean
+    public CaffeineCacheManager cacheManager(
+            @Value("${catalog-cache.max-size:10000}") long maxSize,
+            @Value("${catalog-cache.listing-max-size:1000}") long listingMaxSize,
+            @Value("${catalog-cache.ttl-seconds:300}") long ttlSeconds) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(PRODUCTS_CACHE, Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(LISTINGS_CACHE, Caffeine.newBuilder()
+                .maximumSize(listingMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build());
+        return cacheManager;
+    }
+}
\ No newline at end of file
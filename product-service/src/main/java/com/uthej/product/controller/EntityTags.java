@@ -0,0 +1,72 @@
+package com.uthej.product.controller;
+
+import com.uthej.product.dto.ProductDto;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+/**
+ * Strong entity tags for product representations and If-None-Match matching.
+ */
+final class EntityTags {
+    
+    private EntityTags() {
+    }
+    
+    // Stock is part of the tag because stock of ledger-tracked products changes without a version bump
+    static String of(ProductDto product) {
+        return "\"" + product.getVersion() + "-" + product.getStockQuantity() + "\"";
+    }
+    
+    /**
+     * Tag of a list response: changes when membership, order, version or stock
+     * of any element changes.
+     */
+    static String of(List<ProductDto> products) {
+        long hash = products.size();
+        for (ProductDto product : products) {
+            hash = mix(hash ^ product.getId());
+            hash = mix(hash ^ (product.getVersion() != null ? product.getVersion() : -1L));
+            hash = mix(hash ^ (product.getStockQuantity() != null ? product.getStockQuantity() : -1L));
+        }
+        return "\"" + products.size() + "-" + Long.toHexString(hash) + "\"";
+    }
+    
+    /**
+     * Tag of one representation of the entity with the given JSON tag. Other
+     * representations carry their subtype, so that a cache holding one never
+     * revalidates it with the tag of the other.
+     */
+    static String of(String etag, MediaType contentType) {
+        if (MediaType.APPLICATION_JSON.equalsTypeAndSubtype(contentType)) {
+            return etag;
+        }
+        return etag.substring(0, etag.length() - 1) + "-" + contentType.getSubtype() + "\"";
+    }
+    
+    /**
+     * Weak comparison, as RFC 9110 prescribes for If-None-Match.
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    // SplitMix64 finalizer
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
\ No newline at end of file
@@ -1,74 +1,177 @@
 package com.uthej.product.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.uthej.product.dto.ProductDto;
+import com.uthej.product.dto.ProductQueryResultDto;
+import com.uthej.product.dto.StockReservationDto;
+import com.uthej.product.dto.StockReservationResultDto;
 import com.uthej.product.service.ProductService;
+import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
+@Validated
 @RequestMapping("/products")
 @CrossOrigin(origins = "*")
 public class ProductController {
     
+    private static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+    private static final int MAX_BATCH_IDS = 500;
+    
     @Autowired
     private ProductService productService;
     
+    @Autowired
+    private ObjectMapper objectMapper;
+    
     @GetMapping
-    public ResponseEntity<List<ProductDto>> getAllProducts() {
+    public ResponseEntity<List<ProductDto>> getAllProducts(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         List<ProductDto> products = productService.getAllProducts();
-        return ResponseEntity.ok(products);
+        return conditional(EntityTags.of(products), ifNoneMatch, accept, products);
+    }
+    
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportProducts() {
+        // One JSON document per line, written as rows are read so memory stays flat for any result size
+        StreamingResponseBody body = outputStream -> {
+            ObjectWriter writer = objectMapper.writerFor(ProductDto.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                productService.forEachProduct(product -> {
+                    try {
+                        writer.writeValue(generator, product);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<ProductDto> getProductById(@PathVariable Long id) {
+    public ResponseEntity<ProductDto> getProductById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        // Served from the catalog cache, so a revalidation normally costs neither a query nor serialization
         Optional<ProductDto> product = productService.getProductById(id);
-        return product.map(ResponseEntity::ok)
+        return product.map(p -> conditional(EntityTags.of(p), ifNoneMatch, accept, p))
                 .orElse(ResponseEntity.notFound().build());
     }
     
+    // Bounded so that one request cannot load and serialize the whole catalog
+    @GetMapping("/batch")
+    public ResponseEntity<List<ProductDto>> getProductsByIds(
+            @RequestParam @Size(max = MAX_BATCH_IDS) List<Long> ids,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        List<ProductDto> products = productService.getProductsByIds(ids);
+        return conditional(EntityTags.of(products), ifNoneMatch, accept, products);
+    }
+    
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<ProductDto>> getProductsByCategory(@PathVariable String category) {
+    public ResponseEntity<List<ProductDto>> getProductsByCategory(
+            @PathVariable String category,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         List<ProductDto> products = productService.getProductsByCategory(category);
-        return ResponseEntity.ok(products);
+        return conditional(EntityTags.of(products), ifNoneMatch, accept, products);
     }
     
     @GetMapping("/brand/{brand}")
-    public ResponseEntity<List<ProductDto>> getProductsByBrand(@PathVariable String brand) {
+    public ResponseEntity<List<ProductDto>> getProductsByBrand(
+            @PathVariable String brand,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         List<ProductDto> products = productService.getProductsByBrand(brand);
-        return ResponseEntity.ok(products);
+        return conditional(EntityTags.of(products), ifNoneMatch, accept, products);
     }
     
     @GetMapping("/search")
-    public ResponseEntity<List<ProductDto>> searchProducts(@RequestParam String name) {
-        List<ProductDto> products = productService.searchProductsByName(name);
-        return ResponseEntity.ok(products);
+    public ResponseEntity<List<ProductDto>> searchProducts(
+            @RequestParam String name,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        List<ProductDto> products = productService.searchProductsByName(name, limit);
+        return conditional(EntityTags.of(products), ifNoneMatch, accept, products);
+    }
+    
+    @GetMapping("/query")
+    public ResponseEntity<ProductQueryResultDto> queryProducts(
+            @RequestParam(required = false) Set<String> category,
+            @RequestParam(required = false) Set<String> brand,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "false") boolean inStock,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer size) {
+        if (page < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            ProductQueryResultDto result = productService.queryProducts(category, brand, minPrice, maxPrice, inStock, sort, page, size);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     @GetMapping("/price-range")
     public ResponseEntity<List<ProductDto>> getProductsByPriceRange(
             @RequestParam BigDecimal minPrice,
-            @RequestParam BigDecimal maxPrice) {
+            @RequestParam BigDecimal maxPrice,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         List<ProductDto> products = productService.getProductsByPriceRange(minPrice, maxPrice);
-        return ResponseEntity.ok(products);
+        return conditional(EntityTags.of(products), ifNoneMatch, accept, products);
     }
     
     @GetMapping("/available")
-    public ResponseEntity<List<ProductDto>> getAvailableProducts() {
+    public ResponseEntity<List<ProductDto>> getAvailableProducts(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         List<ProductDto> products = productService.getAvailableProducts();
-        return ResponseEntity.ok(products);
+        return conditional(EntityTags.of(products), ifNoneMatch, accept, products);
     }
     
     @GetMapping("/max-price/{maxPrice}")
-    public ResponseEntity<List<ProductDto>> getProductsByMaxPrice(@PathVariable BigDecimal maxPrice) {
+    public ResponseEntity<List<ProductDto>> getProductsByMaxPrice(
+            @PathVariable BigDecimal maxPrice,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         List<ProductDto> products = productService.getProductsByMaxPrice(maxPrice);
-        return ResponseEntity.ok(products);
+        return conditional(EntityTags.of(products), ifNoneMatch, accept, products);
     }
     
     @PostMapping
@@ -98,4 +201,50 @@ public class ProductController {
         boolean updated = productService.updateStock(id, quantity);
         return ResponseEntity.ok(updated);
     }
-} 
\ No newline at end of file
+    
+    @PostMapping("/stock/reservations")
+    public ResponseEntity<List<StockReservationResultDto>> reserveStock(
+            @RequestBody @NotEmpty List<@Valid StockReservationDto> reservations) {
+        List<StockReservationResultDto> results = productService.reserveStock(reservations);
+        return ResponseEntity.ok(results);
+    }
+    
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<Void> handleConstraintViolation(ConstraintViolationException e) {
+        return ResponseEntity.badRequest().build();
+    }
+    
+    // The representation is picked here rather than by the converters, so that its tag can be told apart
+    private static <T> ResponseEntity<T> conditional(String etag, String ifNoneMatch, String accept, T body) {
+        MediaType contentType = representation(accept);
+        String tag = EntityTags.of(etag, contentType);
+        if (EntityTags.matches(ifNoneMatch, tag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).varyBy(HttpHeaders.ACCEPT).build();
+        }
+        return ResponseEntity.ok().eTag(tag).contentType(contentType).varyBy(HttpHeaders.ACCEPT).body(body);
+    }
+    
+    /**
+     * Smile when the client ranks it at least as high as JSON, as order-service
+     * does; JSON otherwise.
+     */
+    private static MediaType representation(String accept) {
+        if (accept == null) {
+            return MediaType.APPLICATION_JSON;
+        }
+        double smile = 0;
+        double json = 0;
+        try {
+            for (MediaType type : MediaType.parseMediaTypes(accept)) {
+                if (SMILE.equalsTypeAndSubtype(type)) {
+                    smile = Math.max(smile, type.getQualityValue());
+                } else if (type.includes(MediaType.APPLICATION_JSON)) {
+                    json = Math.max(json, type.getQualityValue());
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_JSON;
+        }
+        return smile > 0 && smile >= json ? SMILE : MediaType.APPLICATION_JSON;
+    }
+}
\ No newline at end of file
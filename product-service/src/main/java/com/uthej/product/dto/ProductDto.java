@@ -33,6 +33,7 @@ public class ProductDto {
     private boolean active;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long version;
     
     // Constructors
     public ProductDto() {}
@@ -134,4 +135,12 @@ public class ProductDto {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 } 
\ No newline at end of file
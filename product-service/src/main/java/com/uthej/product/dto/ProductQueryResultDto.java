@@ -0,0 +1,84 @@
+package com.uthej.product.dto;
+
+import java.util.List;
+import java.util.Map;
+
+public class ProductQueryResultDto {
+    private List<ProductDto> products;
+    private Integer total;
+    private Integer page;
+    private Integer size;
+    private Map<String, Integer> categoryFacets;
+    private Map<String, Integer> brandFacets;
+    private Integer inStockCount;
+    
+    // Constructors
+    public ProductQueryResultDto() {}
+    
+    public ProductQueryResultDto(List<ProductDto> products, Integer total, Integer page, Integer size, Map<String, Integer> categoryFacets, Map<String, Integer> brandFacets, Integer inStockCount) {
+        this.products = products;
+        this.total = total;
+        this.page = page;
+        this.size = size;
+        this.categoryFacets = categoryFacets;
+        this.brandFacets = brandFacets;
+        this.inStockCount = inStockCount;
+    }
+    
+    // Getters and Setters
+    public List<ProductDto> getProducts() {
+        return products;
+    }
+    
+    public void setProducts(List<ProductDto> products) {
+        this.products = products;
+    }
+    
+    public Integer getTotal() {
+        return total;
+    }
+    
+    public void setTotal(Integer total) {
+        this.total = total;
+    }
+    
+    public Integer getPage() {
+        return page;
+    }
+    
+    public void setPage(Integer page) {
+        this.page = page;
+    }
+    
+    public Integer getSize() {
+        return size;
+    }
+    
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+    
+    public Map<String, Integer> getCategoryFacets() {
+        return categoryFacets;
+    }
+    
+    public void setCategoryFacets(Map<String, Integer> categoryFacets) {
+        this.categoryFacets = categoryFacets;
+    }
+    
+    public Map<String, Integer> getBrandFacets() {
+        return brandFacets;
+    }
+    
+    public void setBrandFacets(Map<String, Integer> brandFacets) {
+        this.brandFacets = brandFacets;
+    }
+    
+    public Integer getInStockCount() {
+        return inStockCount;
+    }
+    
+    public void setInStockCount(Integer inStockCount) {
+        this.inStockCount = inStockCount;
+    }
+}
\ No newline at end of file
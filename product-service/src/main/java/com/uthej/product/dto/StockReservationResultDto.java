@@ -0,0 +1,61 @@
+package com.uthej.product.dto;
+
+public class StockReservationResultDto {
+    private Long productId;
+    private Integer quantity;
+    private Integer availableQuantity;
+    private boolean reserved;
+    private String message;
+    
+    // Constructors
+    public StockReservationResultDto() {}
+    
+    public StockReservationResultDto(Long productId, Integer quantity, Integer availableQuantity, boolean reserved, String message) {
+        this.productId = productId;
+        this.quantity = quantity;
+        this.availableQuantity = availableQuantity;
+        this.reserved = reserved;
+        this.message = message;
+    }
+    
+    // Getters and Setters
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    
+    public Integer getQuantity() {
+        return quantity;
+    }
+    
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+    
+    public Integer getAvailableQuantity() {
+        return availableQuantity;
+    }
+    
+    public void setAvailableQuantity(Integer availableQuantity) {
+        this.availableQuantity = availableQuantity;
+    }
+    
+    public boolean isReserved() {
+        return reserved;
+    }
+    
+    public void setReserved(boolean reserved) {
+        this.reserved = reserved;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,166 @@
+package com.uthej.product.inventory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only recovery log of stock deltas, split into numbered segments.
+ * Appends only go to an in-memory buffer; {@link #awaitDurable(long)} writes and
+ * fsyncs everything buffered so far, so concurrent callers share a single fsync
+ * (group commit).
+ */
+class InventoryJournal implements Closeable {
+    
+    private static final int RECORD_SIZE = 16;
+    private static final String SEGMENT_PREFIX = "inventory-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    
+    private final Path directory;
+    private final Object writeLock = new Object();
+    private final Object forceLock = new Object();
+    
+    // Guarded by writeLock
+    private ByteBuffer buffer = ByteBuffer.allocate(64 * RECORD_SIZE);
+    private long written;
+    
+    // Guarded by forceLock
+    private ByteBuffer spare = ByteBuffer.allocate(64 * RECORD_SIZE);
+    private FileChannel channel;
+    private long segment;
+    
+    private volatile long durable;
+    
+    InventoryJournal(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        List<Long> existing = list();
+        this.segment = existing.isEmpty() ? 1 : existing.get(existing.size() - 1) + 1;
+        this.channel = open(segment);
+    }
+    
+    /**
+     * Buffers a record and returns its sequence number for {@link #awaitDurable(long)}.
+     */
+    long append(long productId, long delta) {
+        synchronized (writeLock) {
+            if (buffer.remaining() < RECORD_SIZE) {
+                ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+            buffer.putLong(productId).putLong(delta);
+            return ++written;
+        }
+    }
+    
+    /**
+     * Blocks until the record with the given sequence number is on disk.
+     */
+    void awaitDurable(long sequence) throws IOException {
+        if (durable >= sequence) {
+            return;
+        }
+        synchronized (forceLock) {
+            if (durable < sequence) {
+                sync();
+            }
+        }
+    }
+    
+    /**
+     * Makes the current segment durable, closes it and starts a new one. Callers
+     * must ensure no appends race with rotation. Returns the closed segment number.
+     */
+    long rotate() throws IOException {
+        synchronized (forceLock) {
+            sync();
+            channel.close();
+            long closed = segment;
+            segment++;
+            channel = open(segment);
+            return closed;
+        }
+    }
+    
+    void delete(long segment) throws IOException {
+        Files.deleteIfExists(path(segment));
+    }
+    
+    /**
+     * Lists the numbers of closed segments on disk in ascending order.
+     */
+    List<Long> closedSegments() throws IOException {
+        synchronized (forceLock) {
+            return list().stream()
+                    .filter(closed -> closed < segment)
+                    .collect(Collectors.toList());
+        }
+    }
+    
+    private List<Long> list() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+    
+    /**
+     * Sums the deltas recorded in a segment per product. A torn record at the end
+     * of the file (crash mid-write) was never acknowledged and is ignored.
+     */
+    Map<Long, Long> read(long segment) throws IOException {
+        Map<Long, Long> deltas = new HashMap<>();
+        ByteBuffer contents = ByteBuffer.wrap(Files.readAllBytes(path(segment)));
+        while (contents.remaining() >= RECORD_SIZE) {
+            deltas.merge(contents.getLong(), contents.getLong(), Long::sum);
+        }
+        return deltas;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        synchronized (forceLock) {
+            sync();
+            channel.close();
+        }
+    }
+    
+    private void sync() throws IOException {
+        ByteBuffer pending;
+        long target;
+        synchronized (writeLock) {
+            pending = buffer;
+            buffer = spare;
+            target = written;
+        }
+        pending.flip();
+        while (pending.hasRemaining()) {
+            channel.write(pending);
+        }
+        channel.force(false);
+        spare = pending.clear();
+        durable = target;
+    }
+    
+    private FileChannel open(long segment) throws IOException {
+        return FileChannel.open(path(segment), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+    
+    private Path path(long segment) {
+        return directory.resolve(SEGMENT_PREFIX + segment + SEGMENT_SUFFIX);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,364 @@
+package com.uthej.product.inventory;
+
+import com.uthej.product.model.InventoryCheckpoint;
+import com.uthej.product.model.Product;
+import com.uthej.product.repository.InventoryCheckpointRepository;
+import com.uthej.product.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Optional in-memory inventory for hot products. Stock for tracked products is
+ * answered from lock-free counters; every acknowledged change is first made
+ * durable in the {@link InventoryJournal}, and net deltas are flushed to the
+ * {@code products} table in periodic batches. Journal segments are only deleted
+ * once a checkpoint for them has been committed together with their deltas, so
+ * recovery after a crash never loses or double-applies a change.
+ * <p>
+ * Products are tracked from the {@code hot-products} list at startup, and any
+ * other product is promoted by the flush once it is decremented at least
+ * {@code promote-after} times between two flushes.
+ * <p>
+ * The journal directory must belong to this instance alone: another instance
+ * replaying or deleting its segments would lose or double-apply changes, so
+ * there is no shared default.
+ */
+@Component
+public class InventoryLedger {
+    
+    private static final Logger log = LoggerFactory.getLogger(InventoryLedger.class);
+    
+    @Value("${inventory.ledger.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${inventory.ledger.hot-products:}")
+    private List<Long> hotProducts;
+    
+    @Value("${inventory.ledger.journal-dir:}")
+    private String journalDir;
+    
+    @Value("${inventory.ledger.promote-after:100}")
+    private int promoteAfter;
+    
+    @Value("${inventory.ledger.promotion-wait-ms:1000}")
+    private long promotionWaitMillis;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private InventoryCheckpointRepository checkpointRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private final Map<Long, StockCounter> counters = new ConcurrentHashMap<>();
+    
+    // Appenders hold the read lock from counter update to journal append; rotation takes the write lock
+    private final ReadWriteLock rotationLock = new ReentrantReadWriteLock();
+    
+    // Guards the handoff of a product from the database to a counter; never held across a transaction
+    private final Lock handoffLock = new ReentrantLock();
+    private final Condition handoffChanged = handoffLock.newCondition();
+    
+    // Guarded by handoffLock: database-side stock changes in progress per product, and products being seeded
+    private final Map<Long, Integer> databaseChanges = new HashMap<>();
+    private final Set<Long> promoting = new HashSet<>();
+    
+    // Decrements of products that are not tracked yet, since the last flush
+    private volatile Map<Long, LongAdder> demand = new ConcurrentHashMap<>();
+    
+    // Guarded by "this"
+    private final List<Long> unflushedSegments = new ArrayList<>();
+    private final List<Long> purgeableCheckpoints = new ArrayList<>();
+    
+    private TransactionTemplate transactionTemplate;
+    private InventoryJournal journal;
+    
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        if (journalDir.isBlank()) {
+            throw new IllegalStateException("inventory.ledger.journal-dir must be set to a directory of this instance's own");
+        }
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        journal = new InventoryJournal(Path.of(journalDir));
+        recover();
+        hotProducts.forEach(this::track);
+    }
+    
+    @PreDestroy
+    public void stop() throws IOException {
+        if (journal != null) {
+            flush();
+            journal.close();
+        }
+    }
+    
+    /**
+     * Starts serving the product's stock from memory, seeded from the database.
+     * Waits up to {@code promotion-wait-ms} for database-side stock changes of
+     * the product in progress, so the seed includes them, and gives up for now
+     * if they do not finish; new changes of the product wait for the seed.
+     */
+    public void track(Long productId) {
+        if (!enabled || counters.containsKey(productId)) {
+            return;
+        }
+        handoffLock.lock();
+        try {
+            if (!promoting.add(productId) || !awaitNoDatabaseChanges(productId)) {
+                return;
+            }
+        } finally {
+            handoffLock.unlock();
+        }
+        
+        try {
+            transactionTemplate.execute(status -> productRepository.findById(productId))
+                    .ifPresent(product -> counters.computeIfAbsent(productId, id -> new StockCounter(product.getStockQuantity())));
+        } finally {
+            handoffLock.lock();
+            try {
+                promoting.remove(productId);
+                handoffChanged.signalAll();
+            } finally {
+                handoffLock.unlock();
+            }
+        }
+    }
+    
+    // Called with handoffLock held; releases the claim on the product if the wait runs out
+    private boolean awaitNoDatabaseChanges(Long productId) {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(promotionWaitMillis);
+        try {
+            while (databaseChanges.containsKey(productId) && remaining > 0) {
+                remaining = handoffChanged.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!databaseChanges.containsKey(productId)) {
+            return true;
+        }
+        promoting.remove(productId);
+        handoffChanged.signalAll();
+        log.info("Postponed promoting product {}: database-side stock changes still in progress", productId);
+        return false;
+    }
+    
+    /**
+     * Keeps the given products from being promoted until the returned hold is
+     * run. Paths that change stock in the database take a hold before checking
+     * {@link #isHot} and run it once their transaction has completed; the hold
+     * is a count, so only a promotion of one of these products waits for it.
+     */
+    public Runnable holdPromotions(Collection<Long> productIds) {
+        if (!enabled) {
+            return () -> {};
+        }
+        Set<Long> held = Set.copyOf(productIds);
+        handoffLock.lock();
+        try {
+            while (held.stream().anyMatch(promoting::contains)) {
+                handoffChanged.awaitUninterruptibly();
+            }
+            held.forEach(productId -> databaseChanges.merge(productId, 1, Integer::sum));
+        } finally {
+            handoffLock.unlock();
+        }
+        return () -> {
+            handoffLock.lock();
+            try {
+                held.forEach(productId -> databaseChanges.computeIfPresent(productId, (id, count) -> count == 1 ? null : count - 1));
+                handoffChanged.signalAll();
+            } finally {
+                handoffLock.unlock();
+            }
+        };
+    }
+    
+    /**
+     * Counts a database-side decrement of a product that is not tracked yet.
+     */
+    public void recordDemand(Long productId) {
+        if (enabled && promoteAfter > 0) {
+            demand.computeIfAbsent(productId, id -> new LongAdder()).increment();
+        }
+    }
+    
+    public boolean isHot(Long productId) {
+        return counters.containsKey(productId);
+    }
+    
+    public int available(Long productId) {
+        return (int) counters.get(productId).available();
+    }
+    
+    /**
+     * Takes stock for a hot product; a negative quantity returns stock. Returns
+     * once the change is durable in the journal.
+     */
+    public boolean take(Long productId, int quantity) {
+        StockCounter counter = counters.get(productId);
+        long sequence;
+        rotationLock.readLock().lock();
+        try {
+            if (!counter.tryTake(quantity)) {
+                return false;
+            }
+            sequence = journal.append(productId, quantity);
+            counter.recordTaken(quantity);
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+        awaitDurable(sequence);
+        return true;
+    }
+    
+    /**
+     * Takes stock for several hot products, all or nothing. Returns the id of the
+     * first product that could not be satisfied, or {@code null} on success.
+     */
+    public Long takeAll(Map<Long, Integer> quantities) {
+        Map<Long, Integer> taken = new HashMap<>();
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            if (!take(entry.getKey(), entry.getValue())) {
+                taken.forEach((productId, quantity) -> take(productId, -quantity));
+                return entry.getKey();
+            }
+            taken.put(entry.getKey(), entry.getValue());
+        }
+        return null;
+    }
+    
+    /**
+     * Overwrites the stock of a hot product, e.g. from a product update.
+     */
+    public void setAvailable(Long productId, int stockQuantity) {
+        StockCounter counter = counters.get(productId);
+        long sequence;
+        rotationLock.readLock().lock();
+        try {
+            long delta = counter.set(stockQuantity);
+            sequence = journal.append(productId, delta);
+            counter.recordTaken(delta);
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+        awaitDurable(sequence);
+    }
+    
+    @Scheduled(fixedDelayString = "${inventory.ledger.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        if (journal == null) {
+            return;
+        }
+        
+        Map<Long, Long> deltas = new HashMap<>();
+        rotationLock.writeLock().lock();
+        try {
+            unflushedSegments.add(journal.rotate());
+            counters.forEach((productId, counter) -> {
+                long delta = counter.drainPending();
+                if (delta != 0) {
+                    deltas.put(productId, delta);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            rotationLock.writeLock().unlock();
+        }
+        
+        try {
+            apply(deltas, unflushedSegments);
+        } catch (RuntimeException e) {
+            // Keep the segments and carry the deltas over to the next flush
+            deltas.forEach((productId, delta) -> counters.get(productId).recordTaken(delta));
+            log.warn("Inventory flush failed, retrying on next run", e);
+            return;
+        }
+        
+        for (Long segment : unflushedSegments) {
+            try {
+                journal.delete(segment);
+                purgeableCheckpoints.add(segment);
+            } catch (IOException e) {
+                log.warn("Could not delete inventory journal segment {}", segment, e);
+            }
+        }
+        unflushedSegments.clear();
+        promoteBusiest();
+    }
+    
+    private void promoteBusiest() {
+        Map<Long, LongAdder> recorded = demand;
+        demand = new ConcurrentHashMap<>();
+        recorded.forEach((productId, decrements) -> {
+            if (decrements.sum() >= promoteAfter && !isHot(productId)) {
+                track(productId);
+                log.info("Promoted product {} to the inventory ledger after {} decrements", productId, decrements.sum());
+            }
+        });
+    }
+    
+    private void recover() throws IOException {
+        for (Long segment : journal.closedSegments()) {
+            if (!checkpointRepository.existsById(segment)) {
+                apply(journal.read(segment), List.of(segment));
+                log.info("Replayed inventory journal segment {}", segment);
+            }
+            journal.delete(segment);
+        }
+        checkpointRepository.deleteAllInBatch();
+    }
+    
+    private void apply(Map<Long, Long> deltas, List<Long> segments) {
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            deltas.forEach((productId, delta) -> productRepository.adjustStock(productId, Math.toIntExact(delta), now));
+            segments.forEach(segment -> checkpointRepository.save(new InventoryCheckpoint(segment)));
+            checkpointRepository.deleteAllByIdInBatch(purgeableCheckpoints);
+        });
+        purgeableCheckpoints.clear();
+    }
+    
+    private void awaitDurable(long sequence) {
+        try {
+            journal.awaitDurable(sequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.uthej.product.inventory;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free stock counter for a single hot product. {@code available} is the
+ * authoritative in-memory stock; {@code pending} accumulates the net units taken
+ * since the last flush to the database.
+ */
+class StockCounter {
+    
+    private final AtomicLong available;
+    private final LongAdder pending = new LongAdder();
+    
+    StockCounter(long available) {
+        this.available = new AtomicLong(available);
+    }
+    
+    /**
+     * Takes {@code quantity} units if enough are available. A negative quantity
+     * returns units and always succeeds.
+     */
+    boolean tryTake(long quantity) {
+        while (true) {
+            long current = available.get();
+            if (current < quantity) {
+                return false;
+            }
+            if (available.compareAndSet(current, current - quantity)) {
+                return true;
+            }
+        }
+    }
+    
+    /**
+     * Overwrites the available stock and returns the number of units taken by
+     * doing so (negative when stock was added).
+     */
+    long set(long target) {
+        return available.getAndSet(target) - target;
+    }
+    
+    long available() {
+        return available.get();
+    }
+    
+    void recordTaken(long quantity) {
+        pending.add(quantity);
+    }
+    
+    long drainPending() {
+        return pending.sumThenReset();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.uthej.product.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "inventory_checkpoints")
+public class InventoryCheckpoint {
+    
+    @Id
+    private Long segment;
+    
+    @Column(nullable = false)
+    private LocalDateTime flushedAt;
+    
+    // Constructors
+    public InventoryCheckpoint() {}
+    
+    public InventoryCheckpoint(Long segment) {
+        this.segment = segment;
+        this.flushedAt = LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public Long getSegment() {
+        return segment;
+    }
+    
+    public void setSegment(Long segment) {
+        this.segment = segment;
+    }
+    
+    public LocalDateTime getFlushedAt() {
+        return flushedAt;
+    }
+    
+    public void setFlushedAt(LocalDateTime flushedAt) {
+        this.flushedAt = flushedAt;
+    }
+}
\ No newline at end of file
@@ -9,7 +9,12 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_category", columnList = "category"),
+        @Index(name = "idx_products_brand", columnList = "brand"),
+        @Index(name = "idx_products_price", columnList = "price"),
+        @Index(name = "idx_products_active_stock_quantity", columnList = "active, stockQuantity")
+})
 public class Product {
     
     @Id
@@ -46,6 +51,9 @@ public class Product {
     
     private LocalDateTime updatedAt;
     
+    @Version
+    private Long version;
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -157,4 +165,12 @@ public class Product {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
-} 
\ No newline at end of file
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
\ No newline at end of file
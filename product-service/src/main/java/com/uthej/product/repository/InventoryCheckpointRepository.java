@@ -0,0 +1,9 @@
+package com.uthej.product.repository;
+
+import com.uthej.product.model.InventoryCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface InventoryCheckpointRepository extends JpaRepository<InventoryCheckpoint, Long> {
+}
\ No newline at end of file
@@ -1,13 +1,25 @@
 package com.uthej.product.repository;
 
 import com.uthej.product.model.Product;
+import com.uthej.product.search.ProductFacets;
+import com.uthej.product.search.ProductName;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
@@ -17,9 +29,51 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice);
     List<Product> findByNameContainingIgnoreCase(String name);
     
+    @Query("SELECT new com.uthej.product.search.ProductName(p.id, p.name) FROM Product p WHERE p.active = true")
+    List<ProductName> findActiveProductNames();
+    
+    @Query("SELECT new com.uthej.product.search.ProductFacets(p.id, p.category, p.brand, p.price, p.stockQuantity, p.active) FROM Product p ORDER BY p.id")
+    List<ProductFacets> findProductFacets();
+    
+    @Query("SELECT new com.uthej.product.search.ProductFacets(p.id, p.category, p.brand, p.price, p.stockQuantity, p.active) FROM Product p WHERE p.id IN :ids")
+    List<ProductFacets> findProductFacetsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Forward-only cursor for exports; rows are fetched from the driver in chunks instead of all at once
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Product p WHERE p.active = true ORDER BY p.id")
+    Stream<Product> streamByActiveTrue();
+    
     @Query("SELECT p FROM Product p WHERE p.stockQuantity > 0 AND p.active = true")
     List<Product> findAvailableProducts();
     
     @Query("SELECT p FROM Product p WHERE p.price <= :maxPrice AND p.active = true")
     List<Product> findProductsByMaxPrice(@Param("maxPrice") BigDecimal maxPrice);
-} 
\ No newline at end of file
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids ORDER BY p.id")
+    List<Product> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+    
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity, p.version = p.version + 1, p.updatedAt = :updatedAt " +
+           "WHERE p.id = :id AND p.stockQuantity >= :quantity")
+    int decrementStock(@Param("id") Long id, @Param("quantity") Integer quantity, @Param("updatedAt") LocalDateTime updatedAt);
+    
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :delta, p.version = p.version + 1, p.updatedAt = :updatedAt " +
+           "WHERE p.id = :id")
+    int adjustStock(@Param("id") Long id, @Param("delta") Integer delta, @Param("updatedAt") LocalDateTime updatedAt);
+    
+    // Everything a product update sets except the stock, for products whose stock the inventory ledger owns
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE Product p SET p.name = :name, p.description = :description, p.price = :price, p.category = :category, " +
+           "p.brand = :brand, p.imageUrl = :imageUrl, p.active = :active, p.version = p.version + 1, p.updatedAt = :updatedAt " +
+           "WHERE p.id = :id")
+    int updateDetails(@Param("id") Long id, @Param("name") String name, @Param("description") String description,
+                      @Param("price") BigDecimal price, @Param("category") String category, @Param("brand") String brand,
+                      @Param("imageUrl") String imageUrl, @Param("active") boolean active,
+                      @Param("updatedAt") LocalDateTime updatedAt);
+}
\ No newline at end of file
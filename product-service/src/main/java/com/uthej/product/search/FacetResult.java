@@ -0,0 +1,16 @@
+package com.uthej.product.search;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of matching product ids with the total match count and facet counts.
+ * Category counts ignore the category filter and brand counts ignore the brand
+ * filter, so a client can show how many products each alternative would match.
+ */
+public record FacetResult(List<Long> productIds,
+                          int total,
+                          Map<String, Integer> categories,
+                          Map<String, Integer> brands,
+                          int inStock) {
+}
\ No newline at end of file
@@ -0,0 +1,458 @@
+package com.uthej.product.search;
+
+import com.uthej.product.inventory.InventoryLedger;
+import com.uthej.product.model.Product;
+import com.uthej.product.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * In-memory bitmap index for faceted catalog queries. Every product gets a dense
+ * slot; category, brand, active and in-stock are bitmaps over those slots, and
+ * prices are kept as a column of slots sorted by price. Filters become bitmap
+ * intersections, so a query never touches the database. Product writes update
+ * the index in place and a periodic rebuild picks up writes made by other
+ * instances.
+ */
+@Component
+public class ProductFacetIndex {
+    
+    private static final Logger log = LoggerFactory.getLogger(ProductFacetIndex.class);
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private InventoryLedger inventoryLedger;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    // Guarded by lock
+    private Columns columns = new Columns(16);
+    // Products written while a rebuild is in progress, reloaded onto the rebuilt columns; null otherwise
+    private Set<Long> written;
+    
+    @PostConstruct
+    public void start() {
+        rebuild();
+    }
+    
+    @Scheduled(initialDelayString = "${catalog-search.rebuild-interval-ms:600000}",
+            fixedDelayString = "${catalog-search.rebuild-interval-ms:600000}")
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            written = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            List<ProductFacets> products = productRepository.findProductFacets();
+            Columns rebuilt = new Columns(Math.max(16, products.size()));
+            for (ProductFacets product : products) {
+                rebuilt.set(rebuilt.append(product.id()), product.category(), product.brand(), product.price(),
+                        stock(product), product.active());
+            }
+            rebuilt.sortPrices();
+            
+            Set<Long> dirty = swap(() -> columns = rebuilt);
+            // Stock changes arrive as deltas that the table read may already include, so products
+            // written meanwhile are reloaded rather than replayed, until a reload sees no new writes
+            while (!dirty.isEmpty()) {
+                List<ProductFacets> reloaded = productRepository.findProductFacetsByIdIn(dirty);
+                dirty = swap(() -> reloaded.forEach(product -> columns.put(product.id(), product.category(),
+                        product.brand(), product.price(), stock(product), product.active())));
+            }
+            log.info("Indexed facets of {} products in {} ms", products.size(), (System.nanoTime() - started) / 1_000_000);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                written = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+    
+    /**
+     * Indexes the current state of a product; stock of hot products is taken from the ledger.
+     */
+    public void put(Product product) {
+        int stock = inventoryLedger.isHot(product.getId())
+                ? inventoryLedger.available(product.getId())
+                : product.getStockQuantity();
+        lock.writeLock().lock();
+        try {
+            columns.put(product.getId(), product.getCategory(), product.getBrand(), product.getPrice(), stock, product.isActive());
+            recordWrite(product.getId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void adjustStock(Long productId, int delta) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = columns.slots.get(productId);
+            if (slot != null) {
+                columns.setStock(slot, columns.stock[slot] + delta);
+            }
+            recordWrite(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void setStock(Long productId, int stockQuantity) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = columns.slots.get(productId);
+            if (slot != null) {
+                columns.setStock(slot, stockQuantity);
+            }
+            recordWrite(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public FacetResult query(ProductQuery query) {
+        lock.readLock().lock();
+        try {
+            Columns c = columns;
+            BitSet base = (BitSet) c.active.clone();
+            if (query.inStock()) {
+                base.and(c.inStock);
+            }
+            if (query.minPrice() != null || query.maxPrice() != null) {
+                base.and(c.priceRange(query.minPrice(), query.maxPrice()));
+            }
+            BitSet categoryFilter = c.category.union(query.categories());
+            BitSet brandFilter = c.brand.union(query.brands());
+            
+            BitSet matches = (BitSet) base.clone();
+            and(matches, categoryFilter);
+            and(matches, brandFilter);
+            
+            BitSet categoryBase = (BitSet) base.clone();
+            and(categoryBase, brandFilter);
+            BitSet brandBase = (BitSet) base.clone();
+            and(brandBase, categoryFilter);
+            BitSet matchesInStock = (BitSet) matches.clone();
+            matchesInStock.and(c.inStock);
+            
+            return new FacetResult(
+                    c.page(matches, query.sort(), query.page() * query.size(), query.size()),
+                    matches.cardinality(),
+                    c.category.counts(categoryBase),
+                    c.brand.counts(brandBase),
+                    matchesInStock.cardinality());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Runs the update under the write lock and returns the products written since
+     * the previous call, starting a new set.
+     */
+    private Set<Long> swap(Runnable update) {
+        lock.writeLock().lock();
+        try {
+            update.run();
+            Set<Long> dirty = written;
+            written = new HashSet<>();
+            return dirty;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // Guarded by lock
+    private void recordWrite(Long productId) {
+        if (written != null) {
+            written.add(productId);
+        }
+    }
+    
+    private int stock(ProductFacets product) {
+        return inventoryLedger.isHot(product.id())
+                ? inventoryLedger.available(product.id())
+                : product.stockQuantity();
+    }
+    
+    private static void and(BitSet target, BitSet filter) {
+        if (filter != null) {
+            target.and(filter);
+        }
+    }
+    
+    /**
+     * Column store over dense slots. Slots are assigned in id order on rebuild and
+     * appended for new products, so slot order is also id order. Products are only
+     * ever deactivated, never removed, so slots stay valid until the next rebuild.
+     */
+    private static final class Columns {
+        
+        private final Map<Long, Integer> slots = new HashMap<>();
+        private final BitSet active = new BitSet();
+        private final BitSet inStock = new BitSet();
+        private final Dimension category;
+        private final Dimension brand;
+        
+        private int size;
+        private long[] ids;
+        private BigDecimal[] prices;
+        private int[] stock;
+        // The first "priced" entries hold every slot ordered by (price, slot)
+        private int[] priceOrder;
+        private int priced;
+        
+        Columns(int capacity) {
+            ids = new long[capacity];
+            category = new Dimension(capacity);
+            brand = new Dimension(capacity);
+            prices = new BigDecimal[capacity];
+            stock = new int[capacity];
+            priceOrder = new int[capacity];
+        }
+        
+        int append(Long productId) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                category.grow(capacity);
+                brand.grow(capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                stock = Arrays.copyOf(stock, capacity);
+                priceOrder = Arrays.copyOf(priceOrder, capacity);
+            }
+            int slot = size++;
+            ids[slot] = productId;
+            slots.put(productId, slot);
+            return slot;
+        }
+        
+        void set(int slot, String categoryValue, String brandValue, BigDecimal price, int stockQuantity, boolean isActive) {
+            category.set(slot, categoryValue);
+            brand.set(slot, brandValue);
+            prices[slot] = price;
+            active.set(slot, isActive);
+            setStock(slot, stockQuantity);
+        }
+        
+        void setStock(int slot, int stockQuantity) {
+            stock[slot] = stockQuantity;
+            inStock.set(slot, stockQuantity > 0);
+        }
+        
+        void put(Long productId, String categoryValue, String brandValue, BigDecimal price, int stockQuantity, boolean isActive) {
+            Integer existing = slots.get(productId);
+            if (existing == null) {
+                int slot = append(productId);
+                set(slot, categoryValue, brandValue, price, stockQuantity, isActive);
+                insertPrice(slot);
+            } else if (prices[existing].compareTo(price) != 0) {
+                removePrice(existing);
+                set(existing, categoryValue, brandValue, price, stockQuantity, isActive);
+                insertPrice(existing);
+            } else {
+                set(existing, categoryValue, brandValue, price, stockQuantity, isActive);
+            }
+        }
+        
+        void sortPrices() {
+            priceOrder = IntStream.range(0, size)
+                    .boxed()
+                    .sorted(Comparator.<Integer, BigDecimal>comparing(slot -> prices[slot]).thenComparingInt(slot -> slot))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            priceOrder = Arrays.copyOf(priceOrder, ids.length);
+            priced = size;
+        }
+        
+        private void insertPrice(int slot) {
+            int position = pricePosition(slot);
+            System.arraycopy(priceOrder, position, priceOrder, position + 1, priced - position);
+            priceOrder[position] = slot;
+            priced++;
+        }
+        
+        // Must run before the slot's price changes
+        private void removePrice(int slot) {
+            int position = pricePosition(slot);
+            System.arraycopy(priceOrder, position + 1, priceOrder, position, priced - 1 - position);
+            priced--;
+        }
+        
+        // Index of the first entry not ordered before (price, slot); for a priced slot its own position
+        private int pricePosition(int slot) {
+            BigDecimal price = prices[slot];
+            int low = 0;
+            int high = priced;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int other = priceOrder[mid];
+                int cmp = prices[other].compareTo(price);
+                if (cmp < 0 || (cmp == 0 && other < slot)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+        
+        BitSet priceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+            int from = minPrice == null ? 0 : firstAtLeast(minPrice, false);
+            int to = maxPrice == null ? priced : firstAtLeast(maxPrice, true);
+            BitSet range = new BitSet(size);
+            for (int i = from; i < to; i++) {
+                range.set(priceOrder[i]);
+            }
+            return range;
+        }
+        
+        // Index of the first price >= bound, or > bound when exclusive
+        private int firstAtLeast(BigDecimal bound, boolean exclusive) {
+            int low = 0;
+            int high = priced;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int cmp = prices[priceOrder[mid]].compareTo(bound);
+                if (cmp < 0 || (exclusive && cmp == 0)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+        
+        List<Long> page(BitSet matches, ProductQuery.Sort sort, int offset, int limit) {
+            List<Long> page = new ArrayList<>(limit);
+            int skipped = 0;
+            switch (sort) {
+                case ID -> {
+                    for (int slot = matches.nextSetBit(0); slot >= 0 && page.size() < limit; slot = matches.nextSetBit(slot + 1)) {
+                        if (skipped++ >= offset) {
+                            page.add(ids[slot]);
+                        }
+                    }
+                }
+                case NEWEST -> {
+                    for (int slot = matches.previousSetBit(size - 1); slot >= 0 && page.size() < limit; slot = matches.previousSetBit(slot - 1)) {
+                        if (skipped++ >= offset) {
+                            page.add(ids[slot]);
+                        }
+                    }
+                }
+                case PRICE -> {
+                    for (int i = 0; i < priced && page.size() < limit; i++) {
+                        if (matches.get(priceOrder[i]) && skipped++ >= offset) {
+                            page.add(ids[priceOrder[i]]);
+                        }
+                    }
+                }
+                case PRICE_DESC -> {
+                    for (int i = priced - 1; i >= 0 && page.size() < limit; i--) {
+                        if (matches.get(priceOrder[i]) && skipped++ >= offset) {
+                            page.add(ids[priceOrder[i]]);
+                        }
+                    }
+                }
+            }
+            return page;
+        }
+    }
+    
+    /**
+     * One faceted attribute: a bitmap per value for filtering, and the value
+     * ordinal of every slot so facet counts cost one pass over the matches
+     * instead of one bitmap intersection per value.
+     */
+    private static final class Dimension {
+        
+        private final Map<String, Integer> ordinals = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private final List<BitSet> bitmaps = new ArrayList<>();
+        // Ordinal of each slot's value, -1 while unset
+        private int[] bySlot;
+        
+        Dimension(int capacity) {
+            bySlot = new int[capacity];
+            Arrays.fill(bySlot, -1);
+        }
+        
+        void grow(int capacity) {
+            int previous = bySlot.length;
+            bySlot = Arrays.copyOf(bySlot, capacity);
+            Arrays.fill(bySlot, previous, capacity, -1);
+        }
+        
+        void set(int slot, String value) {
+            if (bySlot[slot] >= 0) {
+                bitmaps.get(bySlot[slot]).clear(slot);
+            }
+            int ordinal = ordinals.computeIfAbsent(value, key -> {
+                values.add(key);
+                bitmaps.add(new BitSet());
+                return values.size() - 1;
+            });
+            bySlot[slot] = ordinal;
+            bitmaps.get(ordinal).set(slot);
+        }
+        
+        BitSet union(Set<String> selected) {
+            if (selected == null || selected.isEmpty()) {
+                return null;
+            }
+            BitSet union = new BitSet();
+            for (String value : selected) {
+                Integer ordinal = ordinals.get(value);
+                if (ordinal != null) {
+                    union.or(bitmaps.get(ordinal));
+                }
+            }
+            return union;
+        }
+        
+        // Largest count first, then by value
+        Map<String, Integer> counts(BitSet base) {
+            int[] counts = new int[values.size()];
+            for (int slot = base.nextSetBit(0); slot >= 0; slot = base.nextSetBit(slot + 1)) {
+                counts[bySlot[slot]]++;
+            }
+            List<Integer> present = new ArrayList<>();
+            for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+                if (counts[ordinal] > 0) {
+                    present.add(ordinal);
+                }
+            }
+            present.sort(Comparator.<Integer>comparingInt(ordinal -> -counts[ordinal]).thenComparing(values::get));
+            Map<String, Integer> sorted = new LinkedHashMap<>();
+            present.forEach(ordinal -> sorted.put(values.get(ordinal), counts[ordinal]));
+            return sorted;
+        }
+    }
+}
\ No newline at end of file
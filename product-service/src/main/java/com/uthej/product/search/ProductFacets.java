@@ -0,0 +1,9 @@
+package com.uthej.product.search;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection of the columns the facet index needs.
+ */
+public record ProductFacets(Long id, String category, String brand, BigDecimal price, Integer stockQuantity, boolean active) {
+}
\ No newline at end of file
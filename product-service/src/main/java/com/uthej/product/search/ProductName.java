@@ -0,0 +1,7 @@
+package com.uthej.product.search;
+
+/**
+ * Projection of the columns the search index needs.
+ */
+public record ProductName(Long id, String name) {
+}
\ No newline at end of file
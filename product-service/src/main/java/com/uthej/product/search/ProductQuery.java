@@ -0,0 +1,35 @@
+package com.uthej.product.search;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+/**
+ * Filters for a faceted catalog query. Values within categories or brands are
+ * alternatives; the different filters are combined with AND.
+ */
+public record ProductQuery(Set<String> categories,
+                           Set<String> brands,
+                           BigDecimal minPrice,
+                           BigDecimal maxPrice,
+                           boolean inStock,
+                           Sort sort,
+                           int page,
+                           int size) {
+    
+    public enum Sort {
+        ID, NEWEST, PRICE, PRICE_DESC;
+        
+        public static Sort parse(String value) {
+            if (value == null || value.isBlank()) {
+                return ID;
+            }
+            return switch (value) {
+                case "id" -> ID;
+                case "newest" -> NEWEST;
+                case "price" -> PRICE;
+                case "-price" -> PRICE_DESC;
+                default -> throw new IllegalArgumentException("Unsupported sort: " + value);
+            };
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,296 @@
+package com.uthej.product.search;
+
+import com.uthej.product.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over the names of active products. Candidates come
+ * from the posting list of the query's rarest trigram and are verified with a
+ * substring check, so results match the case-insensitive {@code LIKE '%q%'}
+ * they replace. Built at startup, updated on product writes and rebuilt
+ * periodically to pick up writes made by other instances.
+ */
+@Component
+public class ProductSearchIndex {
+    
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+    
+    private static final int GRAM = 3;
+    
+    private static final Comparator<Match> RANKING = Comparator
+            .comparingInt(Match::rank)
+            .thenComparingInt(Match::length)
+            .thenComparingLong(Match::productId);
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    // Guarded by lock. Slots are never reused; removed entries are nulled and compacted away
+    private Map<String, Postings> postings = new HashMap<>();
+    private List<Entry> entries = new ArrayList<>();
+    private Map<Long, Integer> slots = new HashMap<>();
+    private int removed;
+    // Writes made while a rebuild reads the table, replayed onto the rebuilt index; null otherwise
+    private List<Update> pendingUpdates;
+    
+    @PostConstruct
+    public void start() {
+        rebuild();
+    }
+    
+    @Scheduled(initialDelayString = "${catalog-search.rebuild-interval-ms:600000}",
+            fixedDelayString = "${catalog-search.rebuild-interval-ms:600000}")
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        setPendingUpdates(new ArrayList<>());
+        List<ProductName> products;
+        try {
+            products = productRepository.findActiveProductNames();
+        } catch (RuntimeException e) {
+            setPendingUpdates(null);
+            throw e;
+        }
+        Index index = new Index();
+        products.forEach(product -> index.add(product.id(), product.name()));
+        
+        lock.writeLock().lock();
+        try {
+            postings = index.postings;
+            entries = index.entries;
+            slots = index.slots;
+            removed = 0;
+            // The table may have been read before these writes; replaying them again is harmless
+            pendingUpdates.forEach(update -> apply(update.productId(), update.name(), update.active()));
+            pendingUpdates = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Indexed {} product names in {} ms", products.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+    
+    /**
+     * Indexes a product, replacing any previous entry; inactive products are removed.
+     */
+    public void put(Long productId, String name, boolean active) {
+        lock.writeLock().lock();
+        try {
+            apply(productId, name, active);
+            if (pendingUpdates != null) {
+                pendingUpdates.add(new Update(productId, name, active));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void remove(Long productId) {
+        put(productId, null, false);
+    }
+    
+    /**
+     * Returns the ids of up to {@code limit} products whose name contains the
+     * query, ranked exact match first, then prefix, then word start, then
+     * anywhere; ties go to the shorter name.
+     */
+    public List<Long> search(String query, int limit) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        
+        PriorityQueue<Match> top = new PriorityQueue<>(RANKING.reversed());
+        lock.readLock().lock();
+        try {
+            if (normalized.length() < GRAM) {
+                // Too short for a trigram: scan the in-memory names instead of the table
+                for (Entry entry : entries) {
+                    collect(entry, normalized, limit, top);
+                }
+            } else {
+                Postings rarest = null;
+                for (String gram : grams(normalized)) {
+                    Postings candidates = postings.get(gram);
+                    if (candidates == null) {
+                        return List.of();
+                    }
+                    if (rarest == null || candidates.size < rarest.size) {
+                        rarest = candidates;
+                    }
+                }
+                for (int i = 0; i < rarest.size; i++) {
+                    collect(entries.get(rarest.slots[i]), normalized, limit, top);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        
+        List<Match> ranked = new ArrayList<>(top);
+        ranked.sort(RANKING);
+        return ranked.stream().map(Match::productId).toList();
+    }
+    
+    private void collect(Entry entry, String query, int limit, PriorityQueue<Match> top) {
+        if (entry == null) {
+            return;
+        }
+        int position = entry.name.indexOf(query);
+        if (position < 0) {
+            return;
+        }
+        Match match = new Match(entry.productId, rank(entry.name, query, position), entry.name.length());
+        if (top.size() < limit) {
+            top.add(match);
+        } else if (RANKING.compare(match, top.peek()) < 0) {
+            top.poll();
+            top.add(match);
+        }
+    }
+    
+    private static int rank(String name, String query, int position) {
+        if (position == 0) {
+            return name.length() == query.length() ? 0 : 1;
+        }
+        if (!Character.isLetterOrDigit(name.charAt(position - 1))) {
+            return 2;
+        }
+        // A later occurrence may still start a word
+        int next = name.indexOf(query, position + 1);
+        while (next > 0) {
+            if (!Character.isLetterOrDigit(name.charAt(next - 1))) {
+                return 2;
+            }
+            next = name.indexOf(query, next + 1);
+        }
+        return 3;
+    }
+    
+    private void setPendingUpdates(List<Update> updates) {
+        lock.writeLock().lock();
+        try {
+            pendingUpdates = updates;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private void apply(Long productId, String name, boolean active) {
+        removeEntry(productId);
+        if (active && name != null) {
+            Index index = new Index(postings, entries, slots);
+            index.add(productId, name);
+        }
+        compactIfNeeded();
+    }
+    
+    private void removeEntry(Long productId) {
+        Integer slot = slots.remove(productId);
+        if (slot != null) {
+            entries.set(slot, null);
+            removed++;
+        }
+    }
+    
+    private void compactIfNeeded() {
+        if (removed < 1024 || removed < entries.size() / 4) {
+            return;
+        }
+        Index index = new Index();
+        for (Entry entry : entries) {
+            if (entry != null) {
+                index.add(entry.productId, entry.name);
+            }
+        }
+        postings = index.postings;
+        entries = index.entries;
+        slots = index.slots;
+        removed = 0;
+    }
+    
+    static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+    
+    private static Set<String> grams(String normalized) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+    
+    private record Entry(Long productId, String name) {
+    }
+    
+    private record Match(Long productId, int rank, int length) {
+    }
+    
+    private record Update(Long productId, String name, boolean active) {
+    }
+    
+    /**
+     * Mutable view used both to build a fresh index and to add to the live one.
+     */
+    private static final class Index {
+        
+        private final Map<String, Postings> postings;
+        private final List<Entry> entries;
+        private final Map<Long, Integer> slots;
+        
+        Index() {
+            this(new HashMap<>(), new ArrayList<>(), new HashMap<>());
+        }
+        
+        Index(Map<String, Postings> postings, List<Entry> entries, Map<Long, Integer> slots) {
+            this.postings = postings;
+            this.entries = entries;
+            this.slots = slots;
+        }
+        
+        void add(Long productId, String name) {
+            String normalized = normalize(name);
+            int slot = entries.size();
+            entries.add(new Entry(productId, normalized));
+            slots.put(productId, slot);
+            for (String gram : grams(normalized)) {
+                postings.computeIfAbsent(gram, g -> new Postings()).add(slot);
+            }
+        }
+    }
+    
+    /**
+     * Growable list of slots, in ascending order since slots are only appended.
+     */
+    private static final class Postings {
+        
+        private int[] slots = new int[4];
+        private int size;
+        
+        void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,101 @@
+package com.uthej.product.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.uthej.product.config.CacheConfig;
+import com.uthej.product.dto.ProductDto;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through cache of active products by id, plus per-category and per-brand
+ * listings. Listings are cached as immutable lists of product ids, so stock
+ * changes only invalidate the affected product entries and never the listings.
+ */
+@Component
+public class ProductCatalogCache {
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    private Cache<Object, Object> products;
+    private Cache<Object, Object> listings;
+    
+    @PostConstruct
+    public void init() {
+        products = ((CaffeineCache) cacheManager.getCache(CacheConfig.PRODUCTS_CACHE)).getNativeCache();
+        listings = ((CaffeineCache) cacheManager.getCache(CacheConfig.LISTINGS_CACHE)).getNativeCache();
+    }
+    
+    public Optional<ProductDto> getProduct(Long productId, Function<Long, Optional<ProductDto>> loader) {
+        return Optional.ofNullable((ProductDto) products.get(productId, id -> loader.apply((Long) id).orElse(null)));
+    }
+    
+    /**
+     * Returns the cached products in the order of {@code productIds}, loading all
+     * missing ones with a single call to {@code loader}.
+     */
+    public List<ProductDto> getProducts(Collection<Long> productIds, Function<Collection<Long>, List<ProductDto>> loader) {
+        Map<Object, Object> found = products.getAll(productIds, missing -> {
+            Map<Object, Object> loaded = new HashMap<>();
+            loader.apply(missing.stream().map(Long.class::cast).collect(Collectors.toList()))
+                    .forEach(product -> loaded.put(product.getId(), product));
+            return loaded;
+        });
+        return productIds.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .map(ProductDto.class::cast)
+                .collect(Collectors.toUnmodifiableList());
+    }
+    
+    @SuppressWarnings("unchecked")
+    public List<ProductDto> getListing(String key, Supplier<List<ProductDto>> listingLoader,
+                                       Function<Collection<Long>, List<ProductDto>> productLoader) {
+        List<Long> productIds = (List<Long>) listings.get(key, k -> {
+            List<ProductDto> loaded = listingLoader.get();
+            loaded.forEach(product -> products.put(product.getId(), product));
+            return loaded.stream().map(ProductDto::getId).collect(Collectors.toUnmodifiableList());
+        });
+        return getProducts(productIds, productLoader);
+    }
+    
+    public static String categoryKey(String category) {
+        return "category:" + category;
+    }
+    
+    public static String brandKey(String brand) {
+        return "brand:" + brand;
+    }
+    
+    /**
+     * Invalidates a product entry. Inside a transaction this happens after commit,
+     * so a concurrent read cannot re-cache the pre-commit state.
+     */
+    public void evictProduct(Long productId) {
+        TransactionCallbacks.afterCommit(() -> products.invalidate(productId));
+    }
+    
+    public void evictProducts(Collection<Long> productIds) {
+        TransactionCallbacks.afterCommit(() -> products.invalidateAll(productIds));
+    }
+    
+    public void evictListings(String category, String brand) {
+        TransactionCallbacks.afterCommit(() -> {
+            listings.invalidate(categoryKey(category));
+            listings.invalidate(brandKey(brand));
+        });
+    }
+}
\ No newline at end of file
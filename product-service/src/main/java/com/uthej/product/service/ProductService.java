@@ -1,15 +1,36 @@
 package com.uthej.product.service;
 
 import com.uthej.product.dto.ProductDto;
+import com.uthej.product.dto.ProductQueryResultDto;
+import com.uthej.product.dto.StockReservationDto;
+import com.uthej.product.dto.StockReservationResultDto;
+import com.uthej.product.inventory.InventoryLedger;
 import com.uthej.product.model.Product;
 import com.uthej.product.repository.ProductRepository;
+import com.uthej.product.search.FacetResult;
+import com.uthej.product.search.ProductFacetIndex;
+import com.uthej.product.search.ProductQuery;
+import com.uthej.product.search.ProductSearchIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ProductService {
@@ -17,30 +38,92 @@ public class ProductService {
     @Autowired
     private ProductRepository productRepository;
     
+    @Autowired
+    private InventoryLedger inventoryLedger;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Autowired
+    private ProductCatalogCache catalogCache;
+    
+    @Autowired
+    private ProductSearchIndex searchIndex;
+    
+    @Autowired
+    private ProductFacetIndex facetIndex;
+    
+    @Value("${catalog-search.default-limit:50}")
+    private int defaultSearchLimit;
+    
+    @Value("${catalog-search.max-limit:500}")
+    private int maxSearchLimit;
+    
     public List<ProductDto> getAllProducts() {
         return productRepository.findByActiveTrue().stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Hands every active product to {@code consumer} in id order without
+     * materializing the catalog. Each row is detached once converted, so the
+     * persistence context stays empty however large the result is.
+     */
+    @Transactional(readOnly = true)
+    public void forEachProduct(Consumer<ProductDto> consumer) {
+        try (Stream<Product> products = productRepository.streamByActiveTrue()) {
+            products.forEach(product -> {
+                consumer.accept(convertToDto(product));
+                entityManager.detach(product);
+            });
+        }
+    }
+    
     public Optional<ProductDto> getProductById(Long id) {
-        return productRepository.findById(id)
-                .filter(Product::isActive)
-                .map(this::convertToDto);
+        return catalogCache.getProduct(id, productId -> productRepository.findById(productId)
+                        .filter(Product::isActive)
+                        .map(this::convertToDto))
+                .map(this::withLiveStock);
+    }
+    
+    public List<ProductDto> getProductsByIds(List<Long> ids) {
+        return withLiveStock(catalogCache.getProducts(ids, this::loadActiveProducts));
     }
     
     public List<ProductDto> getProductsByCategory(String category) {
-        return productRepository.findByCategory(category).stream()
-                .filter(Product::isActive)
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return withLiveStock(catalogCache.getListing(ProductCatalogCache.categoryKey(category),
+                () -> productRepository.findByCategory(category).stream()
+                        .filter(Product::isActive)
+                        .map(this::convertToDto)
+                        .collect(Collectors.toList()),
+                this::loadActiveProducts));
     }
     
     public List<ProductDto> getProductsByBrand(String brand) {
-        return productRepository.findByBrand(brand).stream()
-                .filter(Product::isActive)
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return withLiveStock(catalogCache.getListing(ProductCatalogCache.brandKey(brand),
+                () -> productRepository.findByBrand(brand).stream()
+                        .filter(Product::isActive)
+                        .map(this::convertToDto)
+                        .collect(Collectors.toList()),
+                this::loadActiveProducts));
+    }
+    
+    public ProductQueryResultDto queryProducts(Set<String> categories, Set<String> brands,
+                                               BigDecimal minPrice, BigDecimal maxPrice, boolean inStock,
+                                               String sort, int page, Integer size) {
+        int pageSize = Math.max(1, Math.min(size != null ? size : defaultSearchLimit, maxSearchLimit));
+        ProductQuery query = new ProductQuery(categories, brands, minPrice, maxPrice, inStock,
+                ProductQuery.Sort.parse(sort), page, pageSize);
+        FacetResult result = facetIndex.query(query);
+        return new ProductQueryResultDto(
+                withLiveStock(catalogCache.getProducts(result.productIds(), this::loadActiveProducts)),
+                result.total(),
+                page,
+                pageSize,
+                result.categories(),
+                result.brands(),
+                result.inStock());
     }
     
     public List<ProductDto> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
@@ -50,11 +133,10 @@ public class ProductService {
                 .collect(Collectors.toList());
     }
     
-    public List<ProductDto> searchProductsByName(String name) {
-        return productRepository.findByNameContainingIgnoreCase(name).stream()
-                .filter(Product::isActive)
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    public List<ProductDto> searchProductsByName(String name, Integer limit) {
+        // Never let a client ask for an unbounded result
+        int size = Math.max(1, Math.min(limit != null ? limit : defaultSearchLimit, maxSearchLimit));
+        return withLiveStock(catalogCache.getProducts(searchIndex.search(name, size), this::loadActiveProducts));
     }
     
     public List<ProductDto> getAvailableProducts() {
@@ -72,26 +154,57 @@ public class ProductService {
     public ProductDto createProduct(ProductDto productDto) {
         Product product = convertToEntity(productDto);
         Product savedProduct = productRepository.save(product);
+        catalogCache.evictListings(savedProduct.getCategory(), savedProduct.getBrand());
+        searchIndex.put(savedProduct.getId(), savedProduct.getName(), savedProduct.isActive());
+        facetIndex.put(savedProduct);
         return convertToDto(savedProduct);
     }
     
     public ProductDto updateProduct(Long id, ProductDto productDto) {
+        Runnable promotionHold = inventoryLedger.holdPromotions(List.of(id));
+        try {
+            return update(id, productDto);
+        } finally {
+            promotionHold.run();
+        }
+    }
+    
+    private ProductDto update(Long id, ProductDto productDto) {
         Optional<Product> existingProduct = productRepository.findById(id);
         if (existingProduct.isEmpty()) {
             throw new RuntimeException("Product not found");
         }
         
         Product product = existingProduct.get();
+        catalogCache.evictListings(product.getCategory(), product.getBrand());
+        
+        // Stock of hot products lives in the ledger, whose flushes change the row under this copy;
+        // the other columns are updated on their own so neither the stock nor the version goes stale
+        if (inventoryLedger.isHot(id)) {
+            inventoryLedger.setAvailable(id, productDto.getStockQuantity());
+            productRepository.updateDetails(id, productDto.getName(), productDto.getDescription(), productDto.getPrice(),
+                    productDto.getCategory(), productDto.getBrand(), productDto.getImageUrl(), productDto.isActive(),
+                    LocalDateTime.now());
+            return indexUpdated(productRepository.findById(id).orElseThrow());
+        }
+        
         product.setName(productDto.getName());
         product.setDescription(productDto.getDescription());
         product.setPrice(productDto.getPrice());
         product.setCategory(productDto.getCategory());
         product.setBrand(productDto.getBrand());
-        product.setStockQuantity(productDto.getStockQuantity());
         product.setImageUrl(productDto.getImageUrl());
         product.setActive(productDto.isActive());
-        
-        Product savedProduct = productRepository.save(product);
+        product.setStockQuantity(productDto.getStockQuantity());
+        return indexUpdated(productRepository.save(product));
+    }
+    
+    private ProductDto indexUpdated(Product savedProduct) {
+        Long id = savedProduct.getId();
+        catalogCache.evictProduct(id);
+        catalogCache.evictListings(savedProduct.getCategory(), savedProduct.getBrand());
+        searchIndex.put(id, savedProduct.getName(), savedProduct.isActive());
+        facetIndex.put(savedProduct);
         return convertToDto(savedProduct);
     }
     
@@ -101,20 +214,146 @@ public class ProductService {
             Product p = product.get();
             p.setActive(false);
             productRepository.save(p);
+            catalogCache.evictProduct(id);
+            catalogCache.evictListings(p.getCategory(), p.getBrand());
+            searchIndex.remove(id);
+            facetIndex.put(p);
         }
     }
     
+    @Transactional
     public boolean updateStock(Long productId, Integer quantity) {
-        Optional<Product> product = productRepository.findById(productId);
-        if (product.isPresent()) {
-            Product p = product.get();
-            if (p.getStockQuantity() >= quantity) {
-                p.setStockQuantity(p.getStockQuantity() - quantity);
-                productRepository.save(p);
-                return true;
+        // A product cannot be promoted to the ledger between this decrement and its commit
+        TransactionCallbacks.afterCompletion(inventoryLedger.holdPromotions(List.of(productId)));
+        if (inventoryLedger.isHot(productId)) {
+            boolean taken = inventoryLedger.take(productId, quantity);
+            if (taken) {
+                facetIndex.setStock(productId, inventoryLedger.available(productId));
             }
+            return taken;
+        }
+        
+        // Single conditional UPDATE: never oversells, even when many orders hit the same product concurrently
+        boolean updated = productRepository.decrementStock(productId, quantity, LocalDateTime.now()) == 1;
+        inventoryLedger.recordDemand(productId);
+        if (updated) {
+            catalogCache.evictProduct(productId);
+            TransactionCallbacks.afterCommit(() -> facetIndex.adjustStock(productId, -quantity));
+        }
+        return updated;
+    }
+    
+    @Transactional
+    public List<StockReservationResultDto> reserveStock(List<StockReservationDto> reservations) {
+        TransactionCallbacks.afterCompletion(inventoryLedger.holdPromotions(reservations.stream()
+                .map(StockReservationDto::getProductId)
+                .collect(Collectors.toSet())));
+        // Merge duplicate lines; rows are locked in ascending id order so concurrent reservations cannot deadlock
+        Map<Long, Integer> requested = new TreeMap<>();
+        Map<Long, Integer> hotRequested = new TreeMap<>();
+        for (StockReservationDto reservation : reservations) {
+            Map<Long, Integer> lines = inventoryLedger.isHot(reservation.getProductId()) ? hotRequested : requested;
+            lines.merge(reservation.getProductId(), reservation.getQuantity(), Integer::sum);
         }
-        return false;
+        Map<Long, Product> products = productRepository.findAllByIdForUpdate(requested.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        productRepository.findAllById(hotRequested.keySet())
+                .forEach(product -> products.put(product.getId(), product));
+        
+        Map<Long, String> failures = new TreeMap<>();
+        for (Map.Entry<Long, Integer> entry : requested.entrySet()) {
+            Product product = products.get(entry.getKey());
+            if (product == null || !product.isActive()) {
+                failures.put(entry.getKey(), "Product not found or inactive");
+            } else if (product.getStockQuantity() < entry.getValue()) {
+                failures.put(entry.getKey(), "Insufficient stock");
+            }
+        }
+        for (Long productId : hotRequested.keySet()) {
+            Product product = products.get(productId);
+            if (product == null || !product.isActive()) {
+                failures.put(productId, "Product not found or inactive");
+            }
+        }
+        
+        // Hot lines are taken last, and given back if the database side does not commit
+        if (failures.isEmpty() && !hotRequested.isEmpty()) {
+            Long insufficient = inventoryLedger.takeAll(hotRequested);
+            if (insufficient != null) {
+                failures.put(insufficient, "Insufficient stock");
+            } else {
+                TransactionCallbacks.afterRollback(() -> hotRequested.forEach((productId, quantity) -> {
+                    inventoryLedger.take(productId, -quantity);
+                    facetIndex.setStock(productId, inventoryLedger.available(productId));
+                }));
+            }
+        }
+        
+        boolean reserved = failures.isEmpty();
+        List<StockReservationResultDto> results = new ArrayList<>();
+        for (StockReservationDto reservation : reservations) {
+            Long productId = reservation.getProductId();
+            Product product = products.get(productId);
+            int available = 0;
+            if (inventoryLedger.isHot(productId)) {
+                available = inventoryLedger.available(productId);
+            } else if (product != null) {
+                available = product.getStockQuantity();
+            }
+            results.add(new StockReservationResultDto(
+                    productId,
+                    reservation.getQuantity(),
+                    available,
+                    reserved,
+                    failures.get(productId)));
+        }
+        
+        if (reserved) {
+            for (Map.Entry<Long, Integer> entry : requested.entrySet()) {
+                Product product = products.get(entry.getKey());
+                product.setStockQuantity(product.getStockQuantity() - entry.getValue());
+            }
+            productRepository.saveAll(products.values());
+            requested.keySet().forEach(inventoryLedger::recordDemand);
+            catalogCache.evictProducts(requested.keySet());
+            hotRequested.keySet().forEach(productId -> facetIndex.setStock(productId, inventoryLedger.available(productId)));
+            TransactionCallbacks.afterCommit(() -> requested.forEach((productId, quantity) -> facetIndex.adjustStock(productId, -quantity)));
+        }
+        return results;
+    }
+    
+    private List<ProductDto> loadActiveProducts(Collection<Long> ids) {
+        return productRepository.findAllById(ids).stream()
+                .filter(Product::isActive)
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+    }
+    
+    private List<ProductDto> withLiveStock(List<ProductDto> products) {
+        return products.stream()
+                .map(this::withLiveStock)
+                .collect(Collectors.toList());
+    }
+    
+    // Cached entries are shared, so hot products get a copy carrying the ledger's current stock
+    private ProductDto withLiveStock(ProductDto cached) {
+        if (!inventoryLedger.isHot(cached.getId())) {
+            return cached;
+        }
+        ProductDto dto = new ProductDto();
+        dto.setId(cached.getId());
+        dto.setName(cached.getName());
+        dto.setDescription(cached.getDescription());
+        dto.setPrice(cached.getPrice());
+        dto.setCategory(cached.getCategory());
+        dto.setBrand(cached.getBrand());
+        dto.setStockQuantity(inventoryLedger.available(cached.getId()));
+        dto.setImageUrl(cached.getImageUrl());
+        dto.setActive(cached.isActive());
+        dto.setCreatedAt(cached.getCreatedAt());
+        dto.setUpdatedAt(cached.getUpdatedAt());
+        dto.setVersion(cached.getVersion());
+        return dto;
     }
     
     private ProductDto convertToDto(Product product) {
@@ -125,11 +364,14 @@ public class ProductService {
         dto.setPrice(product.getPrice());
         dto.setCategory(product.getCategory());
         dto.setBrand(product.getBrand());
-        dto.setStockQuantity(product.getStockQuantity());
+        dto.setStockQuantity(inventoryLedger.isHot(product.getId())
+                ? inventoryLedger.available(product.getId())
+                : product.getStockQuantity());
         dto.setImageUrl(product.getImageUrl());
         dto.setActive(product.isActive());
         dto.setCreatedAt(product.getCreatedAt());
         dto.setUpdatedAt(product.getUpdatedAt());
+        dto.setVersion(product.getVersion());
         return dto;
     }
     
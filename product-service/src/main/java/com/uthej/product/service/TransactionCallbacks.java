@@ -0,0 +1,60 @@
+package com.uthej.product.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers in-memory side effects of a write until its transaction has committed,
+ * so concurrent readers never observe, or re-cache, state that may roll back.
+ */
+public final class TransactionCallbacks {
+    
+    private TransactionCallbacks() {
+    }
+    
+    public static void afterCommit(Runnable callback) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    callback.run();
+                }
+            });
+        } else {
+            callback.run();
+        }
+    }
+    
+    /**
+     * Runs the callback once the current transaction has committed or rolled back.
+     */
+    public static void afterCompletion(Runnable callback) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    callback.run();
+                }
+            });
+        } else {
+            callback.run();
+        }
+    }
+    
+    /**
+     * Undoes an in-memory side effect that has already been applied if the
+     * current transaction does not commit.
+     */
+    public static void afterRollback(Runnable callback) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        callback.run();
+                    }
+                }
+            });
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.uthej.product.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureMockMvc
+class ProductControllerBatchTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Test
+    void batchTakesAtMost500Ids() throws Exception {
+        mockMvc.perform(get("/products/batch").param("ids", ids(500)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/products/batch").param("ids", ids(501)))
+                .andExpect(status().isBadRequest());
+    }
+    
+    private static String ids(int count) {
+        return LongStream.rangeClosed(1, count).mapToObj(Long::toString).collect(Collectors.joining(","));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,107 @@
+package com.uthej.product.controller;
+
+import com.uthej.product.model.Product;
+import com.uthej.product.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureMockMvc
+class ProductControllerConditionalGetTest {
+    
+    private static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Test
+    void matchingTagIsAnsweredWith304UntilTheProductChanges() throws Exception {
+        Long id = save("Conditional").getId();
+        String etag = etag(id, MediaType.APPLICATION_JSON);
+        
+        mockMvc.perform(get("/products/{id}", id).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+        // Weak comparison, lists and * as RFC 9110 has them
+        mockMvc.perform(get("/products/{id}", id).header(HttpHeaders.IF_NONE_MATCH, "\"other\", W/" + etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/products/{id}", id).header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/products/{id}", id).header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+                .andExpect(status().isOk());
+        
+        mockMvc.perform(put("/products/{id}/stock", id).param("quantity", "2"))
+                .andExpect(status().isOk());
+        String changed = mockMvc.perform(get("/products/{id}", id).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(changed).isNotEqualTo(etag);
+    }
+    
+    @Test
+    void jsonAndSmileHaveTagsOfTheirOwn() throws Exception {
+        Long id = save("Representations").getId();
+        String json = etag(id, MediaType.APPLICATION_JSON);
+        String smile = etag(id, SMILE);
+        assertThat(smile).isNotEqualTo(json);
+        
+        // Neither representation is revalidated with the tag of the other
+        mockMvc.perform(get("/products/{id}", id).accept(SMILE).header(HttpHeaders.IF_NONE_MATCH, json))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SMILE));
+        mockMvc.perform(get("/products/{id}", id).accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, smile))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+        mockMvc.perform(get("/products/{id}", id).accept(SMILE).header(HttpHeaders.IF_NONE_MATCH, smile))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, smile));
+        
+        // Lists are tagged per representation as well
+        String jsonList = mockMvc.perform(get("/products/category/{category}", "Tagged"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String smileList = mockMvc.perform(get("/products/category/{category}", "Tagged").accept(SMILE))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(smileList).isNotEqualTo(jsonList);
+        mockMvc.perform(get("/products/category/{category}", "Tagged").header(HttpHeaders.IF_NONE_MATCH, jsonList))
+                .andExpect(status().isNotModified());
+    }
+    
+    private Product save(String name) {
+        return productRepository.save(new Product(name, null, new BigDecimal("9.99"), "Tagged", "Acme", 10));
+    }
+    
+    private String etag(Long id, MediaType representation) throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/products/{id}", id).accept(representation))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(representation))
+                .andReturn().getResponse();
+        assertThat(response.getHeaders(HttpHeaders.VARY)).contains(HttpHeaders.ACCEPT);
+        return response.getHeader(HttpHeaders.ETAG);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,83 @@
+package com.uthej.product.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uthej.product.dto.ProductDto;
+import com.uthej.product.model.Product;
+import com.uthej.product.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureMockMvc
+class ProductControllerExportTest {
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Test
+    void exportWritesOneActiveProductPerLineInIdOrder() throws Exception {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            Product product = new Product("Export " + i, "Line " + i, new BigDecimal(i + 1 + ".99"), "Books", "Acme", i);
+            // Every fifth product is inactive and left out
+            product.setActive(i % 5 != 0);
+            products.add(product);
+        }
+        productRepository.saveAll(products);
+        List<Product> active = productRepository.findAll().stream()
+                .filter(Product::isActive)
+                .sorted(Comparator.comparing(Product::getId))
+                .toList();
+        
+        MvcResult started = mockMvc.perform(get("/products").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        
+        // Every document, the last included, ends its line
+        assertThat(body).endsWith("\n");
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(active.size());
+        for (int i = 0; i < lines.length; i++) {
+            Product expected = active.get(i);
+            ProductDto line = objectMapper.readValue(lines[i], ProductDto.class);
+            assertThat(line.getId()).isEqualTo(expected.getId());
+            assertThat(line.getName()).isEqualTo(expected.getName());
+            assertThat(line.getDescription()).isEqualTo(expected.getDescription());
+            assertThat(line.getPrice()).isEqualByComparingTo(expected.getPrice());
+            assertThat(line.getStockQuantity()).isEqualTo(expected.getStockQuantity());
+            assertThat(line.getVersion()).isEqualTo(expected.getVersion());
+        }
+    }
+}
\ No newline at end of file
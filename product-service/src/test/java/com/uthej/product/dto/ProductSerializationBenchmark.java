@@ -0,0 +1,89 @@
+package com.uthej.product.dto;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding a batch of products as JSON and as Smile, with object
+ * mappers configured like the ones behind Spring's message converters. The
+ * encoded sizes are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductSerializationBenchmark {
+    
+    private static final TypeReference<List<ProductDto>> PRODUCT_LIST = new TypeReference<>() {
+    };
+    
+    @Param({"10", "100"})
+    public int products;
+    
+    private final ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectMapper smile = Jackson2ObjectMapperBuilder.smile().build();
+    private List<ProductDto> batch;
+    private byte[] jsonBytes;
+    private byte[] smileBytes;
+    
+    @Setup(Level.Trial)
+    public void encode() throws IOException {
+        batch = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            ProductDto product = new ProductDto("Product " + i, "Description of product " + i,
+                    new BigDecimal("19.99").add(BigDecimal.valueOf(i)), "Category " + i % 10, "Brand " + i % 25, 100 + i);
+            product.setId((long) i + 1);
+            product.setImageUrl("https://images.example.com/products/" + (i + 1) + ".jpg");
+            product.setActive(true);
+            product.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0).plusMinutes(i));
+            product.setUpdatedAt(LocalDateTime.of(2024, 6, 1, 12, 0).plusMinutes(i));
+            product.setVersion((long) i % 7);
+            batch.add(product);
+        }
+        jsonBytes = json.writeValueAsBytes(batch);
+        smileBytes = smile.writeValueAsBytes(batch);
+        System.out.printf("%d products: JSON %d bytes, Smile %d bytes%n", products, jsonBytes.length, smileBytes.length);
+    }
+    
+    @Benchmark
+    public byte[] writeJson() throws IOException {
+        return json.writeValueAsBytes(batch);
+    }
+    
+    @Benchmark
+    public byte[] writeSmile() throws IOException {
+        return smile.writeValueAsBytes(batch);
+    }
+    
+    @Benchmark
+    public List<ProductDto> readJson() throws IOException {
+        return json.readValue(jsonBytes, PRODUCT_LIST);
+    }
+    
+    @Benchmark
+    public List<ProductDto> readSmile() throws IOException {
+        return smile.readValue(smileBytes, PRODUCT_LIST);
+    }
+}
\ No newline at end of file
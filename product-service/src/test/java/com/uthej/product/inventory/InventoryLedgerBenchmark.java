@@ -0,0 +1,88 @@
+package com.uthej.product.inventory;
+
+import com.uthej.product.ProductServiceApplication;
+import com.uthej.product.model.Product;
+import com.uthej.product.repository.ProductRepository;
+import com.uthej.product.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decrements per second on a single product from 16 threads: through the
+ * inventory ledger versus the conditional UPDATE that every other product uses.
+ * Both go through {@link ProductService#updateStock}, on in-memory H2 with the
+ * journal on local disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class InventoryLedgerBenchmark {
+    
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private Long ledgerProductId;
+    private Long databaseProductId;
+    
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        // Passed as arguments so they take precedence over application.yml
+        context = new SpringApplicationBuilder(ProductServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.cloud.config.enabled=false",
+                        "--eureka.client.enabled=false",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--inventory.ledger.enabled=true",
+                        // Only the product tracked below is served from the ledger
+                        "--inventory.ledger.promote-after=0",
+                        "--inventory.ledger.journal-dir=" + Files.createTempDirectory("inventory-benchmark"));
+        productService = context.getBean(ProductService.class);
+        ProductRepository productRepository = context.getBean(ProductRepository.class);
+        ledgerProductId = productRepository.save(product("Ledger product")).getId();
+        databaseProductId = productRepository.save(product("Database product")).getId();
+        context.getBean(InventoryLedger.class).track(ledgerProductId);
+    }
+    
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+    
+    @Benchmark
+    public boolean ledger() {
+        return productService.updateStock(ledgerProductId, 1);
+    }
+    
+    @Benchmark
+    public boolean conditionalUpdate() {
+        return productService.updateStock(databaseProductId, 1);
+    }
+    
+    private static Product product(String name) {
+        return new Product(name, null, new BigDecimal("9.99"), "Benchmark", "Benchmark", Integer.MAX_VALUE);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,121 @@
+package com.uthej.product.inventory;
+
+import com.uthej.product.dto.ProductDto;
+import com.uthej.product.model.Product;
+import com.uthej.product.repository.ProductRepository;
+import com.uthej.product.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "spring.jpa.show-sql=false",
+        "inventory.ledger.enabled=true",
+        "inventory.ledger.promote-after=0",
+        // Flushes are driven by the tests
+        "inventory.ledger.flush-interval-ms=3600000",
+        "inventory.ledger.promotion-wait-ms=200"
+})
+class InventoryLedgerTest {
+    
+    @Autowired
+    private InventoryLedger inventoryLedger;
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @DynamicPropertySource
+    static void journalDir(DynamicPropertyRegistry registry) {
+        try {
+            registry.add("inventory.ledger.journal-dir", Files.createTempDirectory("inventory-ledger-test")::toString);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    @Test
+    void enabledLedgerWithoutJournalDirFailsAtStartup() {
+        InventoryLedger ledger = new InventoryLedger();
+        ReflectionTestUtils.setField(ledger, "enabled", true);
+        ReflectionTestUtils.setField(ledger, "journalDir", "");
+        
+        assertThatThrownBy(ledger::start).isInstanceOf(IllegalStateException.class);
+    }
+    
+    @Test
+    void heldChangeOnlyDelaysPromotionOfItsOwnProduct() {
+        Long held = createProduct(100);
+        Long other = createProduct(100);
+        
+        Runnable hold = inventoryLedger.holdPromotions(List.of(held));
+        try {
+            inventoryLedger.track(other);
+            inventoryLedger.track(held);
+            
+            assertThat(inventoryLedger.isHot(other)).isTrue();
+            assertThat(inventoryLedger.isHot(held)).isFalse();
+        } finally {
+            hold.run();
+        }
+        
+        inventoryLedger.track(held);
+        assertThat(inventoryLedger.isHot(held)).isTrue();
+    }
+    
+    @Test
+    void updatesOfAHotProductLeaveFlushedStockAlone() throws Exception {
+        Long productId = createProduct(1000);
+        inventoryLedger.track(productId);
+        
+        // Flushes change the row between the update's read and its write
+        CompletableFuture<Void> decrements = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < 200; i++) {
+                assertThat(productService.updateStock(productId, 1)).isTrue();
+                inventoryLedger.flush();
+            }
+        });
+        int updates = 0;
+        while (!decrements.isDone()) {
+            ProductDto dto = productService.getProductById(productId).orElseThrow();
+            dto.setName("Renamed " + updates++);
+            ProductDto updated = productService.updateProduct(productId, dto);
+            assertThat(updated.getName()).isEqualTo(dto.getName());
+        }
+        decrements.get(30, TimeUnit.SECONDS);
+        inventoryLedger.flush();
+        
+        Product product = productRepository.findById(productId).orElseThrow();
+        assertThat(updates).isPositive();
+        assertThat(product.getName()).isEqualTo("Renamed " + (updates - 1));
+        assertThat(product.getStockQuantity()).isEqualTo(inventoryLedger.available(productId));
+        
+        ProductDto dto = productService.getProductById(productId).orElseThrow();
+        dto.setStockQuantity(10);
+        productService.updateProduct(productId, dto);
+        inventoryLedger.flush();
+        assertThat(productRepository.findById(productId).orElseThrow().getStockQuantity()).isEqualTo(10);
+    }
+    
+    private Long createProduct(int stock) {
+        return productRepository.save(new Product("Ledger item", null, new BigDecimal("9.99"), "Ledger", "Acme", stock)).getId();
+    }
+}
\ No newline at end of file
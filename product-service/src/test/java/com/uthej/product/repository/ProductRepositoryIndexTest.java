@@ -0,0 +1,60 @@
+package com.uthej.product.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Each product lookup is planned by H2 against the index declared on {@code products}.
+ */
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.uthej.product.repository.ProductRepositoryIndexTest$CapturedSql"
+})
+class ProductRepositoryIndexTest {
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Test
+    void lookupsUseTheirIndexes() {
+        assertThat(plan(() -> productRepository.findByCategory("Books"))).containsIgnoringCase("idx_products_category");
+        assertThat(plan(() -> productRepository.findByBrand("Acme"))).containsIgnoringCase("idx_products_brand");
+        assertThat(plan(() -> productRepository.findByPriceBetween(BigDecimal.ONE, BigDecimal.TEN)))
+                .containsIgnoringCase("idx_products_price");
+        assertThat(plan(() -> productRepository.findByActiveTrue())).containsIgnoringCase("idx_products_active_stock_quantity");
+        assertThat(plan(() -> productRepository.findAvailableProducts())).containsIgnoringCase("idx_products_active_stock_quantity");
+    }
+    
+    // H2 plans the prepared statement before any parameter is bound, so they are left null
+    private String plan(Runnable query) {
+        CapturedSql.statements.clear();
+        query.run();
+        String sql = CapturedSql.statements.get(0);
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, new Object[(int) sql.chars().filter(c -> c == '?').count()]);
+    }
+    
+    public static class CapturedSql implements StatementInspector {
+        
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+        
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
\ No newline at end of file
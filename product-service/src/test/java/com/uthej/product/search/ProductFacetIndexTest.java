@@ -0,0 +1,186 @@
+package com.uthej.product.search;
+
+import com.uthej.product.inventory.InventoryLedger;
+import com.uthej.product.model.Product;
+import com.uthej.product.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Random catalogs, writes and queries, with every result checked against
+ * filtering, counting, sorting and paging the same products directly.
+ */
+class ProductFacetIndexTest {
+    
+    private static final String[] CATEGORIES = {"Books", "Games", "Audio", "Video", "Garden"};
+    private static final String[] BRANDS = {"Acme", "Globex", "Initech", "Umbrella", "Hooli", "Stark", "Wayne"};
+    
+    private final Random random = new Random(7);
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final InventoryLedger inventoryLedger = mock(InventoryLedger.class);
+    // The brute-force side, by id
+    private final Map<Long, ProductFacets> catalog = new TreeMap<>();
+    
+    @Test
+    void matchesBruteForceAcrossWrites() {
+        for (long id = 1; id <= 2000; id++) {
+            catalog.put(id, randomFacets(id));
+        }
+        when(productRepository.findProductFacets()).thenReturn(new ArrayList<>(catalog.values()));
+        ProductFacetIndex index = new ProductFacetIndex();
+        ReflectionTestUtils.setField(index, "productRepository", productRepository);
+        ReflectionTestUtils.setField(index, "inventoryLedger", inventoryLedger);
+        index.start();
+        assertMatchesBruteForce(index);
+        
+        long nextId = catalog.size() + 1;
+        for (int i = 0; i < 1500; i++) {
+            switch (random.nextInt(4)) {
+                case 0 -> {
+                    // New products get ids above every existing one, as the sequence hands them out
+                    ProductFacets product = randomFacets(nextId++);
+                    catalog.put(product.id(), product);
+                    index.put(toProduct(product));
+                }
+                case 1 -> {
+                    ProductFacets product = randomFacets(existingId());
+                    catalog.put(product.id(), product);
+                    index.put(toProduct(product));
+                }
+                case 2 -> {
+                    ProductFacets product = catalog.get(existingId());
+                    int delta = random.nextInt(11) - 5;
+                    catalog.put(product.id(), withStock(product, product.stockQuantity() + delta));
+                    index.adjustStock(product.id(), delta);
+                }
+                default -> {
+                    ProductFacets product = catalog.get(existingId());
+                    int stock = random.nextInt(3);
+                    catalog.put(product.id(), withStock(product, stock));
+                    index.setStock(product.id(), stock);
+                }
+            }
+        }
+        assertMatchesBruteForce(index);
+    }
+    
+    private void assertMatchesBruteForce(ProductFacetIndex index) {
+        for (int i = 0; i < 500; i++) {
+            ProductQuery query = randomQuery();
+            FacetResult result = index.query(query);
+            
+            Predicate<ProductFacets> base = product -> product.active()
+                    && (!query.inStock() || product.stockQuantity() > 0)
+                    && (query.minPrice() == null || product.price().compareTo(query.minPrice()) >= 0)
+                    && (query.maxPrice() == null || product.price().compareTo(query.maxPrice()) <= 0);
+            Predicate<ProductFacets> inCategories = product -> query.categories().isEmpty()
+                    || query.categories().contains(product.category());
+            Predicate<ProductFacets> ofBrands = product -> query.brands().isEmpty()
+                    || query.brands().contains(product.brand());
+            List<ProductFacets> matches = catalog.values().stream()
+                    .filter(base.and(inCategories).and(ofBrands))
+                    .sorted(ordering(query.sort()))
+                    .toList();
+            
+            assertThat(result.total()).as("%s", query).isEqualTo(matches.size());
+            assertThat(result.productIds()).as("%s", query).containsExactlyElementsOf(matches.stream()
+                    .skip((long) query.page() * query.size())
+                    .limit(query.size())
+                    .map(ProductFacets::id)
+                    .toList());
+            assertThat(result.inStock()).as("%s", query)
+                    .isEqualTo((int) matches.stream().filter(product -> product.stockQuantity() > 0).count());
+            assertThat(result.categories()).as("%s", query)
+                    .containsExactlyEntriesOf(counts(base.and(ofBrands), ProductFacets::category));
+            assertThat(result.brands()).as("%s", query)
+                    .containsExactlyEntriesOf(counts(base.and(inCategories), ProductFacets::brand));
+        }
+    }
+    
+    // Slots follow id order, so newest is highest id first and price ties go to the lower id
+    private static Comparator<ProductFacets> ordering(ProductQuery.Sort sort) {
+        Comparator<ProductFacets> byId = Comparator.comparing(ProductFacets::id);
+        Comparator<ProductFacets> byPrice = Comparator.comparing(ProductFacets::price).thenComparing(byId);
+        return switch (sort) {
+            case ID -> byId;
+            case NEWEST -> byId.reversed();
+            case PRICE -> byPrice;
+            case PRICE_DESC -> byPrice.reversed();
+        };
+    }
+    
+    // Largest count first, then by value
+    private Map<String, Integer> counts(Predicate<ProductFacets> filter, Function<ProductFacets, String> value) {
+        Map<String, Integer> counts = catalog.values().stream()
+                .filter(filter)
+                .collect(Collectors.groupingBy(value, Collectors.summingInt(product -> 1)));
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+    }
+    
+    private ProductQuery randomQuery() {
+        BigDecimal minPrice = random.nextInt(3) == 0 ? null : randomPrice();
+        BigDecimal maxPrice = random.nextInt(3) == 0 ? null : randomPrice();
+        ProductQuery.Sort[] sorts = ProductQuery.Sort.values();
+        return new ProductQuery(randomSubset(CATEGORIES), randomSubset(BRANDS), minPrice, maxPrice, random.nextBoolean(),
+                sorts[random.nextInt(sorts.length)], random.nextInt(4), 1 + random.nextInt(40));
+    }
+    
+    private Set<String> randomSubset(String[] values) {
+        Set<String> subset = new HashSet<>();
+        int size = random.nextInt(3);
+        for (int i = 0; i < size; i++) {
+            subset.add(values[random.nextInt(values.length)]);
+        }
+        // A value no product has matches nothing rather than everything
+        if (random.nextInt(20) == 0) {
+            subset.add("Unknown");
+        }
+        return subset;
+    }
+    
+    private ProductFacets randomFacets(long id) {
+        return new ProductFacets(id, CATEGORIES[random.nextInt(CATEGORIES.length)], BRANDS[random.nextInt(BRANDS.length)],
+                randomPrice(), random.nextInt(4), random.nextInt(10) > 0);
+    }
+    
+    // Few distinct prices, so ties and range bounds on an exact price are common
+    private BigDecimal randomPrice() {
+        return BigDecimal.valueOf(100 + random.nextInt(60) * 25, 2);
+    }
+    
+    private long existingId() {
+        return 1 + random.nextInt(catalog.size());
+    }
+    
+    private static ProductFacets withStock(ProductFacets product, int stock) {
+        return new ProductFacets(product.id(), product.category(), product.brand(), product.price(), stock, product.active());
+    }
+    
+    private static Product toProduct(ProductFacets facets) {
+        Product product = new Product("Product " + facets.id(), null, facets.price(), facets.category(), facets.brand(),
+                facets.stockQuantity());
+        product.setId(facets.id());
+        product.setActive(facets.active());
+        return product;
+    }
+}
\ No newline at end of file
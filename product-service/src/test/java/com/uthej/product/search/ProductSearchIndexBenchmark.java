@@ -0,0 +1,85 @@
+package com.uthej.product.search;
+
+import com.uthej.product.repository.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Name searches over 1M products: the trigram index versus a case-insensitive
+ * substring scan of the same names in memory, which is what the database's
+ * {@code LIKE '%q%'} does at best. Queries range from a rare token to common
+ * words and one too short for a trigram.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ProductSearchIndexBenchmark {
+    
+    private static final int PRODUCTS = 1_000_000;
+    private static final int LIMIT = 50;
+    private static final String[] WORDS = {"Wireless", "Mouse", "Cable", "Monitor", "Keyboard", "Stand", "Lamp",
+            "Charger", "Speaker", "Headphones", "Adapter", "Case", "Pro", "Ultra", "Mini", "Max"};
+    
+    @Param({"xq7", "speaker", "pro", "ca"})
+    public String query;
+    
+    private ProductSearchIndex index;
+    private List<ProductName> names;
+    
+    @Setup(Level.Trial)
+    public void build() {
+        Random random = new Random(42);
+        names = new ArrayList<>(PRODUCTS);
+        for (long id = 1; id <= PRODUCTS; id++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " "
+                    + Long.toString(random.nextInt(1 << 20), 36);
+            names.add(new ProductName(id, name));
+        }
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(productRepository.findActiveProductNames()).thenReturn(names);
+        index = new ProductSearchIndex();
+        ReflectionTestUtils.setField(index, "productRepository", productRepository);
+        index.start();
+    }
+    
+    @Benchmark
+    public List<Long> index() {
+        return index.search(query, LIMIT);
+    }
+    
+    // Ranking needs every match, so the scan cannot stop at the limit
+    @Benchmark
+    public List<Long> scan() {
+        String normalized = query.toLowerCase(Locale.ROOT);
+        List<Long> matches = new ArrayList<>();
+        for (ProductName product : names) {
+            if (product.name().toLowerCase(Locale.ROOT).contains(normalized)) {
+                matches.add(product.id());
+            }
+        }
+        return matches;
+    }
+}
\ No newline at end of file
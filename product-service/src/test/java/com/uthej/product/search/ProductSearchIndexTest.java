@@ -0,0 +1,151 @@
+package com.uthej.product.search;
+
+import com.uthej.product.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Random catalogs and queries, with every search checked against a
+ * case-insensitive substring scan of the same names.
+ */
+class ProductSearchIndexTest {
+    
+    private static final String[] WORDS = {"Wireless", "mouse", "USB-C", "cable", "Pro", "ultra", "hd", "Monitor",
+            "keyboard", "Mechanical", "stand", "LED", "lamp", "charger", "Fast", "x", "ab", "abc"};
+    
+    private final Random random = new Random(42);
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    // The brute-force side: the active products and their names
+    private final Map<Long, String> catalog = new TreeMap<>();
+    
+    @Test
+    void matchesSubstringScanAcrossWrites() {
+        for (long id = 1; id <= 3000; id++) {
+            catalog.put(id, randomName());
+        }
+        ProductSearchIndex index = index();
+        assertMatchesScan(index);
+        
+        // Enough removals to compact the index at least once
+        for (int i = 0; i < 2000; i++) {
+            long id = 1 + random.nextInt(4000);
+            if (random.nextInt(3) == 0) {
+                index.remove(id);
+                catalog.remove(id);
+            } else {
+                write(index, id, randomName(), random.nextInt(5) > 0);
+            }
+        }
+        assertMatchesScan(index);
+    }
+    
+    @Test
+    void writesDuringARebuildSurviveIt() throws Exception {
+        for (long id = 1; id <= 500; id++) {
+            catalog.put(id, randomName());
+        }
+        ProductSearchIndex index = index();
+        
+        // The rebuild reads the table as it was, then waits while products are written
+        List<ProductName> snapshot = names();
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+        when(productRepository.findActiveProductNames()).thenAnswer(invocation -> {
+            reading.countDown();
+            written.await(5, TimeUnit.SECONDS);
+            return snapshot;
+        });
+        CompletableFuture<Void> rebuild = CompletableFuture.runAsync(index::rebuild);
+        assertThat(reading.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 300; i++) {
+            long id = 1 + random.nextInt(700);
+            if (random.nextInt(3) == 0) {
+                index.remove(id);
+                catalog.remove(id);
+            } else {
+                write(index, id, randomName(), random.nextInt(5) > 0);
+            }
+        }
+        written.countDown();
+        rebuild.get(5, TimeUnit.SECONDS);
+        
+        assertMatchesScan(index);
+    }
+    
+    private ProductSearchIndex index() {
+        when(productRepository.findActiveProductNames()).thenReturn(names());
+        ProductSearchIndex index = new ProductSearchIndex();
+        ReflectionTestUtils.setField(index, "productRepository", productRepository);
+        index.start();
+        return index;
+    }
+    
+    private void write(ProductSearchIndex index, long id, String name, boolean active) {
+        index.put(id, name, active);
+        if (active) {
+            catalog.put(id, name);
+        } else {
+            catalog.remove(id);
+        }
+    }
+    
+    private void assertMatchesScan(ProductSearchIndex index) {
+        List<String> queries = new ArrayList<>(List.of("a", "AB", "abc", "usb-c", "Pro ", "zzz", "x"));
+        List<String> names = new ArrayList<>(catalog.values());
+        for (int i = 0; i < 300; i++) {
+            String name = names.get(random.nextInt(names.size()));
+            int start = random.nextInt(name.length());
+            String query = name.substring(start, Math.min(name.length(), start + 1 + random.nextInt(8)));
+            queries.add(random.nextBoolean() ? query.toUpperCase(Locale.ROOT) : query);
+        }
+        
+        for (String query : queries) {
+            List<Long> expected = catalog.entrySet().stream()
+                    .filter(entry -> entry.getValue().toLowerCase(Locale.ROOT).contains(query.toLowerCase(Locale.ROOT)))
+                    .map(Map.Entry::getKey)
+                    .toList();
+            List<Long> all = index.search(query, Integer.MAX_VALUE);
+            assertThat(all).as("query '%s'", query).containsExactlyInAnyOrderElementsOf(expected);
+            
+            // A limited search is the head of the full ranking
+            int limit = 1 + random.nextInt(10);
+            assertThat(index.search(query, limit)).as("query '%s' limited to %d", query, limit)
+                    .containsExactlyElementsOf(all.subList(0, Math.min(limit, all.size())));
+        }
+    }
+    
+    private List<ProductName> names() {
+        return catalog.entrySet().stream()
+                .map(entry -> new ProductName(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+    
+    private String randomName() {
+        StringBuilder name = new StringBuilder();
+        int words = 1 + random.nextInt(4);
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                name.append(' ');
+            }
+            name.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        if (random.nextInt(4) == 0) {
+            name.append(' ').append(random.nextInt(1000));
+        }
+        return name.toString();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,105 @@
+package com.uthej.product.service;
+
+import com.uthej.product.dto.StockReservationDto;
+import com.uthej.product.dto.StockReservationResultDto;
+import com.uthej.product.model.Product;
+import com.uthej.product.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "spring.jpa.show-sql=false"
+})
+class ProductServiceStockConcurrencyTest {
+    
+    private static final int INITIAL_STOCK = 100;
+    private static final int ATTEMPTS = 2000;
+    private static final int THREADS = 32;
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Test
+    void parallelDecrementsNeverOversell() throws Exception {
+        Long productId = createProduct();
+        
+        int successes = runConcurrently(() -> productService.updateStock(productId, 1));
+        
+        int finalStock = productRepository.findById(productId).orElseThrow().getStockQuantity();
+        assertThat(finalStock).isGreaterThanOrEqualTo(0);
+        assertThat(successes).isEqualTo(INITIAL_STOCK);
+        assertThat(finalStock).isZero();
+    }
+    
+    @Test
+    void parallelReservationsNeverOversell() throws Exception {
+        Long productId = createProduct();
+        
+        int successes = runConcurrently(() -> {
+            List<StockReservationResultDto> results = productService.reserveStock(
+                    List.of(new StockReservationDto(productId, 1)));
+            return results.get(0).isReserved();
+        });
+        
+        int finalStock = productRepository.findById(productId).orElseThrow().getStockQuantity();
+        assertThat(finalStock).isGreaterThanOrEqualTo(0);
+        assertThat(successes).isEqualTo(INITIAL_STOCK);
+        assertThat(finalStock).isZero();
+    }
+    
+    private Long createProduct() {
+        Product product = new Product("Flash sale item", "Limited stock", new BigDecimal("19.99"), "Deals", "Acme", INITIAL_STOCK);
+        return productRepository.save(product).getId();
+    }
+    
+    /**
+     * Fires all attempts at once from a fixed pool and returns how many succeeded.
+     * An attempt that fails with an exception, e.g. a lock timeout, counts as not
+     * reserved.
+     */
+    private static int runConcurrently(Callable<Boolean> attempt) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < ATTEMPTS; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        return attempt.call();
+                    } catch (RuntimeException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+            int successes = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(30, TimeUnit.SECONDS)) {
+                    successes++;
+                }
+            }
+            return successes;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.uthej.user.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+    
+    public static final String USER_VERSIONS_CACHE = "user-versions";
+    
+    /**
+     * Last known version per user id, for answering If-None-Match. The TTL bounds
+     * how long a write made by another instance can go unnoticed by conditional
+     * reads on this one.
+     */
+    @Bean
+    public CaffeineCacheManager cacheManager(
+            @Value("${user-cache.version-max-size:100000}") long versionMaxSize,
+            @Value("${user-cache.ttl-seconds:30}") long ttlSeconds) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(USER_VERSIONS_CACHE, Caffeine.newBuilder()
+                .maximumSize(versionMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build());
+        return cacheManager;
+    }
+}
\ No newline at end of file
@@ -1,20 +1,99 @@
 package com.uthej.user.config;
 
+import com.uthej.user.service.OffloadingPasswordEncoder;
+import com.uthej.user.service.UserAccountService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
     
+    private static final String BCRYPT = "bcrypt";
+    
+    /**
+     * New hashes are stored as {@code {bcrypt}...} with the configured cost. Hashes
+     * with a lower cost, and the unprefixed BCrypt hashes stored before, still match
+     * and are reported by {@code upgradeEncoding}, so they are rehashed on the next
+     * successful credential check.
+     */
+    @Bean
+    public PasswordEncoder passwordEncoder(
+            ExecutorService passwordHashingExecutor,
+            @Value("${user.password-hashing.bcrypt-strength:10}") int bcryptStrength) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(BCRYPT, Map.of(BCRYPT, bcrypt));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return new OffloadingPasswordEncoder(encoder, passwordHashingExecutor);
+    }
+    
+    /**
+     * One thread per core, since BCrypt is pure CPU. The queue is kept short so a
+     * burst is rejected quickly instead of queueing behind seconds of hashing.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService passwordHashingExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${user.password-hashing.threads:0}") int threads,
+            @Value("${user.password-hashing.queue-capacity:32}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        Counter rejected = Counter.builder("user.password.hashing.rejected")
+                .description("Password hashes refused because the hashing queue was full")
+                .register(meterRegistry);
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, pool) -> {
+                    rejected.increment();
+                    throw new RejectedExecutionException("Password hashing queue is full");
+                });
+        executor.allowCoreThreadTimeOut(true);
+        
+        Gauge.builder("user.password.hashing.queued", executor, pool -> pool.getQueue().size())
+                .description("Password hashes waiting for a hashing thread")
+                .register(meterRegistry);
+        return executor;
+    }
+    
+    /**
+     * Checks credentials for {@code POST /users/login} only, against stored users
+     * and with the offloading encoder. A successful check on an outdated hash
+     * stores a new one through {@link UserAccountService}.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public AuthenticationManager authenticationManager(UserAccountService userAccountService,
+                                                       PasswordEncoder passwordEncoder) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userAccountService);
+        provider.setUserDetailsPasswordService(userAccountService);
+        provider.setPasswordEncoder(passwordEncoder);
+        return new ProviderManager(provider);
     }
     
     @Bean
@@ -23,9 +102,10 @@ public class SecurityConfig {
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(authz -> authz
                 .requestMatchers("/users/**").permitAll()
+                .requestMatchers("/actuator/health/**", "/actuator/info", "/actuator/metrics/**").permitAll()
                 .anyRequest().authenticated()
             );
         
         return http.build();
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
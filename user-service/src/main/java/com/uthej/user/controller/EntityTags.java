@@ -0,0 +1,57 @@
+package com.uthej.user.controller;
+
+import com.uthej.user.dto.UserDto;
+
+import java.util.List;
+
+/**
+ * Strong entity tags for user representations and If-None-Match matching.
+ */
+final class EntityTags {
+    
+    private EntityTags() {
+    }
+    
+    static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+    
+    /**
+     * Tag of a list response: changes when membership, order or the version of
+     * any element changes.
+     */
+    static String of(List<UserDto> users) {
+        long hash = users.size();
+        for (UserDto user : users) {
+            hash = mix(hash ^ user.getId());
+            hash = mix(hash ^ (user.getVersion() != null ? user.getVersion() : -1L));
+        }
+        return "\"" + users.size() + "-" + Long.toHexString(hash) + "\"";
+    }
+    
+    /**
+     * Weak comparison, as RFC 9110 prescribes for If-None-Match.
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    // SplitMix64 finalizer
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
\ No newline at end of file
@@ -1,9 +1,12 @@
 package com.uthej.user.controller;
 
+import com.uthej.user.dto.LoginDto;
 import com.uthej.user.dto.UserDto;
+import com.uthej.user.service.PasswordHashingUnavailableException;
 import com.uthej.user.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -20,29 +23,42 @@ public class UserController {
     private UserService userService;
     
     @GetMapping
-    public ResponseEntity<List<UserDto>> getAllUsers() {
+    public ResponseEntity<List<UserDto>> getAllUsers(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         List<UserDto> users = userService.getAllUsers();
-        return ResponseEntity.ok(users);
+        return conditional(EntityTags.of(users), ifNoneMatch, users);
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<UserDto> getUserById(@PathVariable Long id) {
+    public ResponseEntity<UserDto> getUserById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // A poll carrying the current version is answered from the version cache without a query
+        Optional<Long> cachedVersion = ifNoneMatch != null ? userService.getCachedVersion(id) : Optional.empty();
+        if (cachedVersion.isPresent() && EntityTags.matches(ifNoneMatch, EntityTags.of(cachedVersion.get()))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(EntityTags.of(cachedVersion.get())).build();
+        }
+        
         Optional<UserDto> user = userService.getUserById(id);
-        return user.map(ResponseEntity::ok)
+        return user.map(u -> conditional(EntityTags.of(u.getVersion()), ifNoneMatch, u))
                 .orElse(ResponseEntity.notFound().build());
     }
     
     @GetMapping("/username/{username}")
-    public ResponseEntity<UserDto> getUserByUsername(@PathVariable String username) {
+    public ResponseEntity<UserDto> getUserByUsername(
+            @PathVariable String username,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         Optional<UserDto> user = userService.getUserByUsername(username);
-        return user.map(ResponseEntity::ok)
+        return user.map(u -> conditional(EntityTags.of(u.getVersion()), ifNoneMatch, u))
                 .orElse(ResponseEntity.notFound().build());
     }
     
     @GetMapping("/email/{email}")
-    public ResponseEntity<UserDto> getUserByEmail(@PathVariable String email) {
+    public ResponseEntity<UserDto> getUserByEmail(
+            @PathVariable String email,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         Optional<UserDto> user = userService.getUserByEmail(email);
-        return user.map(ResponseEntity::ok)
+        return user.map(u -> conditional(EntityTags.of(u.getVersion()), ifNoneMatch, u))
                 .orElse(ResponseEntity.notFound().build());
     }
     
@@ -51,16 +67,31 @@ public class UserController {
         try {
             UserDto createdUser = userService.createUser(userDto);
             return ResponseEntity.status(HttpStatus.CREATED).body(createdUser);
+        } catch (PasswordHashingUnavailableException e) {
+            return hashingUnavailable();
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
         }
     }
     
+    @PostMapping("/login")
+    public ResponseEntity<UserDto> login(@Valid @RequestBody LoginDto login) {
+        try {
+            return userService.login(login.getUsername(), login.getPassword())
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+        } catch (PasswordHashingUnavailableException e) {
+            return hashingUnavailable();
+        }
+    }
+    
     @PutMapping("/{id}")
     public ResponseEntity<UserDto> updateUser(@PathVariable Long id, @Valid @RequestBody UserDto userDto) {
         try {
             UserDto updatedUser = userService.updateUser(id, userDto);
             return ResponseEntity.ok(updatedUser);
+        } catch (PasswordHashingUnavailableException e) {
+            return hashingUnavailable();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -87,4 +118,18 @@ public class UserController {
         boolean exists = userService.existsByEmail(email);
         return ResponseEntity.ok(exists);
     }
+    
+    // The hashing pool drains within a second or two; ask the client to retry instead of failing the write
+    private static <T> ResponseEntity<T> hashingUnavailable() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .build();
+    }
+    
+    private static <T> ResponseEntity<T> conditional(String etag, String ifNoneMatch, T body) {
+        if (EntityTags.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(body);
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.uthej.user.service;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs {@code encode} and {@code matches} of the wrapped encoder on a dedicated
+ * pool. The pool is sized to the CPU cores and has a short queue, so a burst of
+ * signups or logins cannot pin every request thread in hashing: once the queue is
+ * full further hashes fail at once with {@link PasswordHashingUnavailableException}
+ * and reads keep their threads and CPU.
+ */
+public class OffloadingPasswordEncoder implements PasswordEncoder {
+    
+    private final PasswordEncoder delegate;
+    private final ExecutorService executor;
+    
+    public OffloadingPasswordEncoder(PasswordEncoder delegate, ExecutorService executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+    
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return offload(() -> delegate.encode(rawPassword));
+    }
+    
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return offload(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+    
+    // Only inspects the stored hash, cheap enough for the calling thread
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+    
+    private <T> T offload(Callable<T> hashing) {
+        Future<T> result;
+        try {
+            result = executor.submit(hashing);
+        } catch (RejectedExecutionException e) {
+            throw new PasswordHashingUnavailableException("Too many concurrent password hashes");
+        }
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.cancel(true);
+            throw new PasswordHashingUnavailableException("Interrupted while waiting for password hashing");
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.uthej.user.service;
+
+/**
+ * Thrown without hashing when the password hashing pool and its queue are full.
+ */
+public class PasswordHashingUnavailableException extends RuntimeException {
+    
+    public PasswordHashingUnavailableException(String message) {
+        super(message);
+    }
+}
\ No newline at end of file
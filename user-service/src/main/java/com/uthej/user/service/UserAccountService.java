@@ -0,0 +1,54 @@
+package com.uthej.user.service;
+
+import com.uthej.user.model.User;
+import com.uthej.user.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Credentials of stored users for Spring Security. As the
+ * {@link UserDetailsPasswordService}, it stores the new hash that the
+ * authentication provider produces when a password that just matched was hashed
+ * with an outdated encoding or cost.
+ */
+@Service
+public class UserAccountService implements UserDetailsService, UserDetailsPasswordService {
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private UserVersionCache versionCache;
+    
+    @Override
+    public UserDetails loadUserByUsername(String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        return toUserDetails(user);
+    }
+    
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        user.setPassword(newPassword);
+        User savedUser = userRepository.save(user);
+        // The rehash bumps the version without going through UserService
+        versionCache.evict(savedUser.getId());
+        return toUserDetails(savedUser);
+    }
+    
+    private static UserDetails toUserDetails(User user) {
+        return org.springframework.security.core.userdetails.User.withUsername(user.getUsername())
+                .password(user.getPassword())
+                .roles(user.getRole().name())
+                .disabled(!user.isActive())
+                .build();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,264 @@
+package com.uthej.user.service;
+
+import com.uthej.user.model.User;
+import com.uthej.user.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filters of every username and email in use, so availability checks for
+ * free values are answered without a query: a value the filter has never seen
+ * cannot exist, and only possible matches are checked against the repository.
+ * Values are added once their user is saved. Deleted users and replaced emails
+ * cannot be taken out of a Bloom filter and only cost an extra query until the
+ * periodic rebuild drops them. Until the first build completes every check goes
+ * to the repository.
+ * <p>
+ * Each instance only adds the users it saves itself, so with several instances a
+ * user created elsewhere reads as free here until the next rebuild. The unique
+ * keys on {@code users} still reject the duplicate; that conflict is reported
+ * through {@link #invalidate()}, after which every check goes to the repository
+ * until the next rebuild.
+ */
+@Component
+public class UserAvailabilityFilter {
+    
+    private static final Logger log = LoggerFactory.getLogger(UserAvailabilityFilter.class);
+    
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+    private final Checks usernameChecks;
+    private final Checks emailChecks;
+    
+    private final AtomicLong invalidations = new AtomicLong();
+    
+    private volatile Filters current;
+    private volatile Filters rebuilding;
+    
+    public UserAvailabilityFilter(
+            UserRepository userRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${user.availability-filter.expected-entries:1000000}") int expectedEntries,
+            @Value("${user.availability-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.usernameChecks = new Checks(meterRegistry, "username");
+        this.emailChecks = new Checks(meterRegistry, "email");
+        
+        Gauge.builder("user.availability.filter.expected.fpp", this, filter -> filter.expectedFpp(Filters::usernames))
+                .tag("field", "username")
+                .description("False positive probability of the filter at its current fill")
+                .register(meterRegistry);
+        Gauge.builder("user.availability.filter.expected.fpp", this, filter -> filter.expectedFpp(Filters::emails))
+                .tag("field", "email")
+                .description("False positive probability of the filter at its current fill")
+                .register(meterRegistry);
+    }
+    
+    public boolean usernameExists(String username) {
+        Filters filters = current;
+        return check(filters != null ? filters.usernames() : null, username, usernameChecks,
+                userRepository::existsByUsername);
+    }
+    
+    public boolean emailExists(String email) {
+        Filters filters = current;
+        return check(filters != null ? filters.emails() : null, email, emailChecks,
+                userRepository::existsByEmail);
+    }
+    
+    /**
+     * Records the keys of a saved user. Must be called after the save has committed,
+     * so that a concurrent rebuild either reads the row or receives the keys here.
+     */
+    public void add(User user) {
+        // Rebuilding first: once it is cleared, current already points at the rebuilt filters
+        Filters next = rebuilding;
+        if (next != null) {
+            next.add(user.getUsername(), user.getEmail());
+        }
+        Filters filters = current;
+        if (filters != null) {
+            filters.add(user.getUsername(), user.getEmail());
+        }
+    }
+    
+    /**
+     * Stops trusting the filters until the next rebuild, for when a username or
+     * email they reported free turned out to be taken. A rebuild already running
+     * may have read the table before that user was saved, so it is discarded too.
+     */
+    public void invalidate() {
+        invalidations.incrementAndGet();
+        current = null;
+        log.warn("User availability filter missed a saved user; checking the repository until the next rebuild");
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${user.availability-filter.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${user.availability-filter.rebuild-interval-ms:3600000}")
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        Filters next = new Filters(new BloomFilter(expectedEntries, falsePositiveRate),
+                new BloomFilter(expectedEntries, falsePositiveRate));
+        long invalidationsBefore = invalidations.get();
+        // Published before reading the table, so users saved while it is read are not missed
+        rebuilding = next;
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<UserRepository.UserKeys> keys = userRepository.streamKeys()) {
+                    keys.forEach(key -> next.add(key.getUsername(), key.getEmail()));
+                }
+            });
+            if (invalidations.get() != invalidationsBefore) {
+                log.info("Discarded user availability filter invalidated while it was rebuilt");
+                return;
+            }
+            current = next;
+            log.info("Rebuilt user availability filter in {} ms", (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            // The previous filters, or none, stay in place; checks are still correct, only slower
+            log.warn("Could not rebuild user availability filter", e);
+        } finally {
+            rebuilding = null;
+        }
+    }
+    
+    private static boolean check(BloomFilter filter, String value, Checks checks, Function<String, Boolean> repository) {
+        if (filter != null && !filter.mightContain(value)) {
+            checks.definiteNegatives.increment();
+            return false;
+        }
+        boolean exists = repository.apply(value);
+        if (filter != null) {
+            (exists ? checks.truePositives : checks.falsePositives).increment();
+        }
+        return exists;
+    }
+    
+    private double expectedFpp(Function<Filters, BloomFilter> field) {
+        Filters filters = current;
+        return filters != null ? field.apply(filters).expectedFpp() : Double.NaN;
+    }
+    
+    private record Filters(BloomFilter usernames, BloomFilter emails) {
+        
+        void add(String username, String email) {
+            usernames.put(username);
+            emails.put(email);
+        }
+    }
+    
+    /**
+     * Outcomes of availability checks for one field: negatives skipped the query,
+     * false positives queried for a value that turned out to be free.
+     */
+    private static final class Checks {
+        
+        private final Counter definiteNegatives;
+        private final Counter truePositives;
+        private final Counter falsePositives;
+        
+        Checks(MeterRegistry meterRegistry, String field) {
+            definiteNegatives = counter(meterRegistry, field, "negative");
+            truePositives = counter(meterRegistry, field, "true_positive");
+            falsePositives = counter(meterRegistry, field, "false_positive");
+        }
+        
+        private static Counter counter(MeterRegistry meterRegistry, String field, String result) {
+            return Counter.builder("user.availability.checks")
+                    .tag("field", field)
+                    .tag("result", result)
+                    .register(meterRegistry);
+        }
+    }
+    
+    /**
+     * Bloom filter over strings with lock-free inserts. The bit count and number of
+     * hash functions follow from the expected entries and target false positive rate;
+     * the indexes are derived from one 64-bit hash by double hashing.
+     */
+    static final class BloomFilter {
+        
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashCount;
+        private final AtomicLong bitsSet = new AtomicLong();
+        
+        BloomFilter(int expectedEntries, double falsePositiveRate) {
+            double ln2 = Math.log(2);
+            long bits = (long) Math.ceil(-Math.max(1, expectedEntries) * Math.log(falsePositiveRate) / (ln2 * ln2));
+            this.words = new AtomicLongArray((int) ((bits + 63) / 64));
+            this.bitCount = words.length() * 64L;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / Math.max(1, expectedEntries) * ln2));
+        }
+        
+        void put(String value) {
+            long hash = hash(value);
+            long h1 = (int) hash;
+            long h2 = hash >>> 32;
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = index(h1 + i * h2);
+                long mask = 1L << bit;
+                long previous = words.getAndAccumulate((int) (bit >>> 6), mask, (word, m) -> word | m);
+                if ((previous & mask) == 0) {
+                    bitsSet.incrementAndGet();
+                }
+            }
+        }
+        
+        boolean mightContain(String value) {
+            long hash = hash(value);
+            long h1 = (int) hash;
+            long h2 = hash >>> 32;
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = index(h1 + i * h2);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        double expectedFpp() {
+            return Math.pow((double) bitsSet.get() / bitCount, hashCount);
+        }
+        
+        private long index(long combined) {
+            return (combined & Long.MAX_VALUE) % bitCount;
+        }
+        
+        // FNV-1a over the characters, then the SplitMix64 finalizer to spread the bits
+        private static long hash(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+            hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+            return hash ^ (hash >>> 31);
+        }
+    }
+}
\ No newline at end of file
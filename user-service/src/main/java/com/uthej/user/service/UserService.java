@@ -4,6 +4,10 @@ import com.uthej.user.dto.UserDto;
 import com.uthej.user.model.User;
 import com.uthej.user.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -20,12 +24,28 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
     
+    @Autowired
+    private UserVersionCache versionCache;
+    
+    @Autowired
+    private UserAvailabilityFilter availabilityFilter;
+    
+    @Autowired
+    private AuthenticationManager authenticationManager;
+    
     public List<UserDto> getAllUsers() {
         return userRepository.findAll().stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Version of the user as last seen by this instance, if still cached.
+     */
+    public Optional<Long> getCachedVersion(Long id) {
+        return versionCache.get(id);
+    }
+    
     public Optional<UserDto> getUserById(Long id) {
         return userRepository.findById(id)
                 .map(this::convertToDto);
@@ -36,24 +56,47 @@ public class UserService {
                 .map(this::convertToDto);
     }
     
+    /**
+     * Checks the password of a user and returns the user if it matches. This is
+     * the only credential check in the service, and where outdated hashes are
+     * replaced; it throws {@link PasswordHashingUnavailableException} when the
+     * hashing pool is full.
+     */
+    public Optional<UserDto> login(String username, String password) {
+        try {
+            authenticationManager.authenticate(UsernamePasswordAuthenticationToken.unauthenticated(username, password));
+        } catch (AuthenticationException e) {
+            return Optional.empty();
+        }
+        return getUserByUsername(username);
+    }
+    
     public Optional<UserDto> getUserByEmail(String email) {
         return userRepository.findByEmail(email)
                 .map(this::convertToDto);
     }
     
     public UserDto createUser(UserDto userDto) {
-        if (userRepository.existsByUsername(userDto.getUsername())) {
+        if (availabilityFilter.usernameExists(userDto.getUsername())) {
             throw new RuntimeException("Username already exists");
         }
         
-        if (userRepository.existsByEmail(userDto.getEmail())) {
+        if (availabilityFilter.emailExists(userDto.getEmail())) {
             throw new RuntimeException("Email already exists");
         }
         
         User user = convertToEntity(userDto);
         user.setPassword(passwordEncoder.encode(userDto.getPassword()));
         
-        User savedUser = userRepository.save(user);
+        User savedUser;
+        try {
+            savedUser = userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // Taken past the filter, by another instance or directly in the database
+            availabilityFilter.invalidate();
+            throw e;
+        }
+        availabilityFilter.add(savedUser);
         return convertToDto(savedUser);
     }
     
@@ -76,6 +119,8 @@ public class UserService {
         }
         
         User savedUser = userRepository.save(user);
+        // The email may have changed
+        availabilityFilter.add(savedUser);
         return convertToDto(savedUser);
     }
     
@@ -84,14 +129,15 @@ public class UserService {
             throw new RuntimeException("User not found");
         }
         userRepository.deleteById(id);
+        versionCache.evict(id);
     }
     
     public boolean existsByUsername(String username) {
-        return userRepository.existsByUsername(username);
+        return availabilityFilter.usernameExists(username);
     }
     
     public boolean existsByEmail(String email) {
-        return userRepository.existsByEmail(email);
+        return availabilityFilter.emailExists(email);
     }
     
     private UserDto convertToDto(User user) {
@@ -106,6 +152,9 @@ public class UserService {
         dto.setActive(user.isActive());
         dto.setCreatedAt(user.getCreatedAt());
         dto.setUpdatedAt(user.getUpdatedAt());
+        dto.setVersion(user.getVersion());
+        // Every representation handed out, read or write, refreshes the version cache
+        versionCache.record(user.getId(), user.getVersion());
         return dto;
     }
     
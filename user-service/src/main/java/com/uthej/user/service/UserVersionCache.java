@@ -0,0 +1,44 @@
+package com.uthej.user.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.uthej.user.config.CacheConfig;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Last known {@code @Version} of each user, so conditional reads can be
+ * answered without loading the row.
+ */
+@Component
+public class UserVersionCache {
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    private Cache<Object, Object> versions;
+    
+    @PostConstruct
+    public void init() {
+        versions = ((CaffeineCache) cacheManager.getCache(CacheConfig.USER_VERSIONS_CACHE)).getNativeCache();
+    }
+    
+    public Optional<Long> get(Long userId) {
+        return Optional.ofNullable((Long) versions.getIfPresent(userId));
+    }
+    
+    // Versions only grow, so a slow read can never overwrite a newer version recorded by a write
+    public void record(Long userId, Long version) {
+        if (userId != null && version != null) {
+            versions.asMap().merge(userId, version, (current, recorded) -> Math.max((Long) current, (Long) recorded));
+        }
+    }
+    
+    public void evict(Long userId) {
+        versions.invalidate(userId);
+    }
+}
\ No newline at end of file
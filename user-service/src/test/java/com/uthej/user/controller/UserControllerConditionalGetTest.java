@@ -0,0 +1,96 @@
+package com.uthej.user.controller;
+
+import com.uthej.user.dto.UserDto;
+import com.uthej.user.repository.UserRepository;
+import com.uthej.user.service.UserService;
+import com.uthej.user.service.UserVersionCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "spring.jpa.show-sql=false",
+        "user.password-hashing.bcrypt-strength=4"
+})
+@AutoConfigureMockMvc
+class UserControllerConditionalGetTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private UserVersionCache versionCache;
+    
+    @SpyBean
+    private UserRepository userRepository;
+    
+    @Test
+    void currentTagIsAnsweredFromTheVersionCacheWithoutLoadingTheUser() throws Exception {
+        UserDto user = userService.createUser(user("conditional"));
+        String etag = mockMvc.perform(get("/users/{id}", user.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isEqualTo("\"" + user.getVersion() + "\"");
+        
+        clearInvocations(userRepository);
+        mockMvc.perform(get("/users/{id}", user.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+        verify(userRepository, never()).findById(user.getId());
+        
+        // Without a cached version the row is loaded, and still not sent when unchanged
+        versionCache.evict(user.getId());
+        mockMvc.perform(get("/users/{id}", user.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        verify(userRepository).findById(user.getId());
+    }
+    
+    @Test
+    void staleTagIsAnsweredWithTheCurrentUser() throws Exception {
+        UserDto user = userService.createUser(user("stale"));
+        String etag = "\"" + user.getVersion() + "\"";
+        
+        user.setFirstName("Renamed");
+        UserDto updated = userService.updateUser(user.getId(), user);
+        assertThat(updated.getVersion()).isGreaterThan(user.getVersion());
+        
+        mockMvc.perform(get("/users/{id}", user.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + updated.getVersion() + "\""));
+        
+        // A deleted user's version is dropped rather than answered from the cache
+        userService.deleteUser(user.getId());
+        mockMvc.perform(get("/users/{id}", user.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"" + updated.getVersion() + "\""))
+                .andExpect(status().isNotFound());
+    }
+    
+    private static UserDto user(String username) {
+        UserDto user = new UserDto();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("secret-password");
+        user.setFirstName("Test");
+        user.setLastName("User");
+        return user;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,88 @@
+package com.uthej.user.controller;
+
+import com.uthej.user.model.User;
+import com.uthej.user.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "spring.jpa.show-sql=false",
+        "user.password-hashing.bcrypt-strength=10"
+})
+@AutoConfigureMockMvc
+class UserControllerLoginTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Test
+    void loginRehashesLegacyHash() throws Exception {
+        // Stored before the encoder was delegating: no prefix and a lower cost
+        String legacyHash = new BCryptPasswordEncoder(4).encode("secret-password");
+        User user = userRepository.save(new User("legacy", "legacy@example.com", legacyHash, "Legacy", "User"));
+        
+        mockMvc.perform(login("legacy", "wrong-password"))
+                .andExpect(status().isUnauthorized());
+        assertThat(userRepository.findById(user.getId()).orElseThrow().getPassword()).isEqualTo(legacyHash);
+        
+        mockMvc.perform(login("legacy", "secret-password"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(user.getId()))
+                .andExpect(jsonPath("$.password").doesNotExist());
+        String upgraded = userRepository.findById(user.getId()).orElseThrow().getPassword();
+        assertThat(upgraded).startsWith("{bcrypt}$2a$10$");
+        assertThat(new BCryptPasswordEncoder().matches("secret-password", upgraded.substring("{bcrypt}".length()))).isTrue();
+    }
+    
+    @Test
+    void loginOfUnknownUserIsUnauthorized() throws Exception {
+        mockMvc.perform(login("nobody", "secret-password"))
+                .andExpect(status().isUnauthorized());
+    }
+    
+    @Test
+    void credentialsOnOtherEndpointsAreNotChecked() throws Exception {
+        String legacyHash = new BCryptPasswordEncoder(4).encode("secret-password");
+        User user = userRepository.save(new User("reader", "reader@example.com", legacyHash, "Reader", "User"));
+        
+        // Neither rejected nor hashed: reads stay off the hashing pool whatever header they carry
+        mockMvc.perform(get("/users/{id}", user.getId())
+                        .header(HttpHeaders.AUTHORIZATION, basic("reader", "wrong-password")))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/users/{id}", user.getId())
+                        .header(HttpHeaders.AUTHORIZATION, basic("reader", "secret-password")))
+                .andExpect(status().isOk());
+        assertThat(userRepository.findById(user.getId()).orElseThrow().getPassword()).isEqualTo(legacyHash);
+    }
+    
+    private static RequestBuilder login(String username, String password) {
+        return post("/users/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}");
+    }
+    
+    private static String basic(String username, String password) {
+        return "Basic " + Base64.getEncoder().encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,124 @@
+package com.uthej.user.service;
+
+import com.uthej.user.UserServiceApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Signups per second and read throughput during a signup burst: 60 threads create
+ * users, one BCrypt hash each, while one thread reads a user, against Tomcat
+ * capped at 50 threads. With the default hashing queue, signups past it get 503
+ * and reads keep a request thread. With an effectively unbounded queue every
+ * request thread ends up waiting for a hash, as when passwords were hashed on the
+ * request thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class PasswordHashingBenchmark {
+    
+    @Param({"32", "1000000"})
+    public int queueCapacity;
+    
+    private final AtomicLong userCount = new AtomicLong();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private volatile long iterationStarted;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private URI readUri;
+    
+    @Setup(Level.Trial)
+    public void start() throws IOException, InterruptedException {
+        // Passed as arguments so they take precedence over application.yml
+        context = new SpringApplicationBuilder(UserServiceApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--server.tomcat.threads.max=50",
+                        "--spring.cloud.config.enabled=false",
+                        "--eureka.client.enabled=false",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--user.password-hashing.queue-capacity=" + queueCapacity);
+        baseUrl = "http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        HttpResponse<String> created = client.send(signupRequest(), HttpResponse.BodyHandlers.ofString());
+        String id = created.body().replaceAll(".*\"id\":(\\d+).*", "$1");
+        readUri = URI.create(baseUrl + "/users/" + id);
+    }
+    
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+    
+    @Setup(Level.Iteration)
+    public void resetCounts() {
+        created.reset();
+        rejected.reset();
+        iterationStarted = System.nanoTime();
+    }
+    
+    // Signups answered 503 are cheap, so the signup score alone overstates hashing throughput
+    @TearDown(Level.Iteration)
+    public void printCounts() {
+        double seconds = (System.nanoTime() - iterationStarted) / 1e9;
+        System.out.printf("created %.1f/s, rejected %.1f/s%n", created.sum() / seconds, rejected.sum() / seconds);
+    }
+    
+    @Benchmark
+    @Group("burst")
+    @GroupThreads(60)
+    public int signup() throws IOException, InterruptedException {
+        int status = client.send(signupRequest(), HttpResponse.BodyHandlers.discarding()).statusCode();
+        (status == 201 ? created : rejected).increment();
+        return status;
+    }
+    
+    @Benchmark
+    @Group("burst")
+    @GroupThreads(1)
+    public int read() throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(readUri).GET().build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+    
+    private HttpRequest signupRequest() {
+        long n = userCount.incrementAndGet();
+        String body = """
+                {"username": "user%d", "email": "user%d@example.com", "password": "benchmark-password",
+                 "firstName": "Bench", "lastName": "Mark"}""".formatted(n, n);
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/users"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+}
\ No newline at end of file
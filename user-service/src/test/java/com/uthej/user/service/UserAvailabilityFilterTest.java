@@ -0,0 +1,143 @@
+package com.uthej.user.service;
+
+import com.uthej.user.dto.UserDto;
+import com.uthej.user.model.User;
+import com.uthej.user.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Users saved through the service are never reported free, whether created,
+ * given a new email, or saved while the filters are rebuilt; a user saved past
+ * the filters sends checks to the repository until the next rebuild.
+ */
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "spring.jpa.show-sql=false",
+        "user.password-hashing.bcrypt-strength=4"
+})
+class UserAvailabilityFilterTest {
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private UserAvailabilityFilter availabilityFilter;
+    
+    @SpyBean
+    private UserRepository userRepository;
+    
+    @BeforeEach
+    void rebuild() {
+        availabilityFilter.rebuild();
+    }
+    
+    @Test
+    void createdAndUpdatedUsersAreNeverReportedFree() {
+        List<UserDto> users = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            users.add(userService.createUser(user("created" + i)));
+        }
+        for (UserDto user : users) {
+            assertThat(userService.existsByUsername(user.getUsername())).isTrue();
+            assertThat(userService.existsByEmail(user.getEmail())).isTrue();
+        }
+        
+        for (UserDto user : users) {
+            user.setEmail("changed-" + user.getEmail());
+            userService.updateUser(user.getId(), user);
+        }
+        for (UserDto user : users) {
+            assertThat(userService.existsByEmail(user.getEmail())).isTrue();
+        }
+        
+        // Answered by the filters alone
+        clearInvocations(userRepository);
+        assertThat(userService.existsByUsername("never-created")).isFalse();
+        verify(userRepository, never()).existsByUsername("never-created");
+    }
+    
+    @Test
+    void userSavedWhileTheTableIsReadIsKept() throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch saved = new CountDownLatch(1);
+        // A snapshot of the table taken before the user is saved, so the rebuilt filters only learn of it from the service
+        doAnswer(invocation -> {
+            List<UserRepository.UserKeys> keys = userRepository.findAll().stream().map(UserAvailabilityFilterTest::keys).toList();
+            reading.countDown();
+            saved.await(5, TimeUnit.SECONDS);
+            return keys.stream();
+        }).when(userRepository).streamKeys();
+        
+        CompletableFuture<Void> rebuild = CompletableFuture.runAsync(availabilityFilter::rebuild);
+        assertThat(reading.await(5, TimeUnit.SECONDS)).isTrue();
+        UserDto user = userService.createUser(user("during-rebuild"));
+        saved.countDown();
+        rebuild.get(5, TimeUnit.SECONDS);
+        
+        assertThat(userService.existsByUsername(user.getUsername())).isTrue();
+        assertThat(userService.existsByEmail(user.getEmail())).isTrue();
+    }
+    
+    @Test
+    void userSavedPastTheFiltersSendsChecksToTheRepositoryUntilRebuilt() {
+        // As another instance would
+        userRepository.save(new User("elsewhere", "elsewhere@example.com", "hashed-password", "Else", "Where"));
+        assertThat(userService.existsByUsername("elsewhere")).isFalse();
+        
+        assertThatThrownBy(() -> userService.createUser(user("elsewhere")))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(userService.existsByUsername("elsewhere")).isTrue();
+        clearInvocations(userRepository);
+        assertThat(userService.existsByUsername("never-created")).isFalse();
+        verify(userRepository).existsByUsername("never-created");
+        
+        availabilityFilter.rebuild();
+        assertThat(userService.existsByUsername("elsewhere")).isTrue();
+        clearInvocations(userRepository);
+        assertThat(userService.existsByUsername("never-created")).isFalse();
+        verify(userRepository, never()).existsByUsername("never-created");
+    }
+    
+    private static UserDto user(String username) {
+        UserDto user = new UserDto();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("secret-password");
+        user.setFirstName("Test");
+        user.setLastName("User");
+        return user;
+    }
+    
+    private static UserRepository.UserKeys keys(User user) {
+        return new UserRepository.UserKeys() {
+            @Override
+            public String getUsername() {
+                return user.getUsername();
+            }
+            
+            @Override
+            public String getEmail() {
+                return user.getEmail();
+            }
+        };
+    }
+}
\ No newline at end of file